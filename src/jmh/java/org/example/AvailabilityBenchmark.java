@@ -0,0 +1,78 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "What's free from 06/01 to 06/07?" over a fleet where every vehicle has a few bookings,
+ * for one dealer and type and for the whole fleet, by scanning the dealership or fleet and
+ * from the bitmaps of an InventoryIndex.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityBenchmark {
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final long FIRST_DAY = 1_900_000_000_000L / DAY_MILLIS * DAY_MILLIS;
+
+    @Param({"100000", "500000"})
+    private int fleetSize;
+
+    @Param({"4"})
+    private int bookingsPerVehicle;
+
+    private DealershipManager manager;
+    private InventoryIndex index;
+    private final Date startDate = new Date(FIRST_DAY + 30 * DAY_MILLIS);
+    private final Date endDate = new Date(FIRST_DAY + 36 * DAY_MILLIS);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(500);
+        generator.setRentalRatio(0);
+        List<Vehicle> fleet = new ArrayList<>(fleetSize);
+        generator.generate(fleetSize, fleet::add);
+
+        // Week-long bookings at random over the next 90 days, the ones that collide are skipped
+        Random random = new Random(42);
+        for (Vehicle vehicle : fleet) {
+            for (int i = 0; i < bookingsPerVehicle; i++) {
+                long start = FIRST_DAY + random.nextInt(90) * DAY_MILLIS;
+                vehicle.reserve(new Date(start), new Date(start + 6 * DAY_MILLIS));
+            }
+        }
+
+        manager = new DealershipManager();
+        manager.ingestVehicles(fleet, null);
+        index = new InventoryIndex(manager);
+    }
+
+    @Benchmark
+    public List<Vehicle> dealerAndType() {
+        return manager.findAvailableVehicles("1", "SUV", startDate, endDate);
+    }
+
+    @Benchmark
+    public List<Vehicle> wholeFleet() {
+        return manager.findAvailableVehicles(null, null, startDate, endDate);
+    }
+
+    @Benchmark
+    public List<Vehicle> indexedDealerAndType() {
+        return index.findAvailable("1", "SUV", startDate, endDate);
+    }
+
+    @Benchmark
+    public List<Vehicle> indexedWholeFleet() {
+        return index.findAvailable(null, null, startDate, endDate);
+    }
+}
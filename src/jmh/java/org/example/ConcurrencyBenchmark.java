@@ -0,0 +1,139 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress test for DealershipManager under contention. Every invocation runs the same number of
+ * random transfers, rentals and returns split over a pool of worker threads, so the time per
+ * invocation should drop as threads are added until the cores run out. After every iteration the
+ * fleet is checked for lost or duplicated vehicles and for rentals that don't add up, and the
+ * benchmark fails if anything is off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrencyBenchmark {
+    private static final int DEALERS = 64;
+    private static final int VEHICLES = 100_000;
+    private static final int OPERATIONS = 100_000;     // Operations per invocation, over all threads
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    @Param({"false", "true"})
+    private boolean journaled;
+
+    private DealershipManager manager;
+    private ExecutorService workers;
+    private String[] vehicleIds;
+    private File inventoryFile;
+    private final AtomicLong netRentals = new AtomicLong();    // Successful rentals minus successful returns
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (journaled) {
+            inventoryFile = Files.createTempFile("concurrency-benchmark", ".json").toFile();
+        }
+
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(DEALERS);
+        generator.setRentalRatio(0);
+        List<Vehicle> vehicles = new ArrayList<>(VEHICLES);
+        generator.generate(VEHICLES, vehicles::add);
+
+        manager = new DealershipManager();
+        manager.ingestVehicles(vehicles, inventoryFile);
+        vehicleIds = vehicles.stream().map(Vehicle::getVehicleId).toArray(String[]::new);
+        workers = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Iteration)
+    public void verifyAndCompact() {
+        List<Vehicle> fleet = manager.getVehiclesForDisplay();
+        Set<String> ids = new HashSet<>();
+        long rented = 0;
+        for (Vehicle vehicle : fleet) {
+            ids.add(vehicle.getVehicleId());
+            Dealership dealership = manager.findDealershipForVehicle(vehicle.getVehicleId());
+            if (dealership == null || !dealership.containsVehicle(vehicle.getVehicleId())) {
+                throw new IllegalStateException("Vehicle " + vehicle.getVehicleId() + " is not where the index says");
+            }
+            if (vehicle.isRented()) rented++;
+        }
+
+        if (fleet.size() != VEHICLES || ids.size() != VEHICLES) {
+            throw new IllegalStateException("Expected " + VEHICLES + " vehicles, found " + fleet.size()
+                    + " (" + ids.size() + " distinct)");
+        }
+        if (rented != netRentals.get()) {
+            throw new IllegalStateException("Expected " + netRentals.get() + " rented vehicles, found " + rented);
+        }
+
+        // Keep the journal from growing across iterations
+        if (journaled) {
+            manager.saveState(inventoryFile);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workers.shutdownNow();
+        manager.closeJournal();
+        if (journaled) {
+            inventoryFile.delete();
+            InventoryJournal.journalFileFor(inventoryFile).delete();
+        }
+    }
+
+    @Benchmark
+    public long mixedOperations() throws InterruptedException, ExecutionException {
+        List<Callable<Long>> tasks = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            tasks.add(() -> runOperations(OPERATIONS / threads));
+        }
+
+        long succeeded = 0;
+        for (Future<Long> result : workers.invokeAll(tasks)) {
+            succeeded += result.get();
+        }
+        return succeeded;
+    }
+
+    /**
+     * 60% transfers to a random dealer, 20% rentals and 20% returns on random vehicles
+     */
+    private long runOperations(int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long succeeded = 0;
+        for (int i = 0; i < count; i++) {
+            String vehicleId = vehicleIds[random.nextInt(vehicleIds.length)];
+            Vehicle vehicle = manager.findVehicle(vehicleId);
+            String dealerId = vehicle.getDealerId();
+            int operation = random.nextInt(10);
+
+            boolean result;
+            if (operation < 6) {
+                String targetDealerId = String.valueOf(1 + random.nextInt(DEALERS));
+                result = manager.transferVehicle(dealerId, targetDealerId, vehicleId, inventoryFile);
+            } else if (operation < 8) {
+                result = manager.rentVehicle(dealerId, vehicleId, "01/01/2030", "01/10/2030", inventoryFile);
+                if (result) netRentals.incrementAndGet();
+            } else {
+                result = manager.returnVehicle(dealerId, vehicleId, inventoryFile);
+                if (result) netRentals.decrementAndGet();
+            }
+            if (result) succeeded++;
+        }
+        return succeeded;
+    }
+}
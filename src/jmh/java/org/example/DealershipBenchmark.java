@@ -0,0 +1,75 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation cost of the Dealership inventory. With the ID index the average time
+ * should stay flat from 1k to 1M vehicles per dealer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DealershipBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int vehiclesPerDealer;
+
+    private Dealership source;
+    private Dealership target;
+    private Vehicle extraVehicle;
+    private String[] vehicleIds;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = new Dealership("1");
+        target = new Dealership("2");
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(1);
+        generator.setRentalRatio(0);
+        List<Vehicle> vehicles = new ArrayList<>(vehiclesPerDealer + 1);
+        generator.generate(vehiclesPerDealer + 1, vehicles::add);
+
+        extraVehicle = vehicles.remove(vehicles.size() - 1);
+        vehicleIds = new String[vehicles.size()];
+        for (int i = 0; i < vehicles.size(); i++) {
+            source.addVehicle(vehicles.get(i));
+            vehicleIds[i] = vehicles.get(i).getVehicleId();
+        }
+    }
+
+    private String nextVehicleId() {
+        cursor = (cursor + 7919) % vehicleIds.length;
+        return vehicleIds[cursor];
+    }
+
+    /**
+     * Adds one vehicle and removes it again so the dealer size stays the same
+     */
+    @Benchmark
+    public boolean addVehicle() {
+        boolean added = source.addVehicle(extraVehicle);
+        source.removeVehicle(extraVehicle.getVehicleId());
+        return added;
+    }
+
+    @Benchmark
+    public Vehicle findVehicleById() {
+        return source.findVehicleById(nextVehicleId());
+    }
+
+    /**
+     * Moves one vehicle to the other dealer and back
+     */
+    @Benchmark
+    public boolean transferVehicle() {
+        String vehicleId = nextVehicleId();
+        return source.transferVehicle(vehicleId, target) && target.transferVehicle(vehicleId, source);
+    }
+}
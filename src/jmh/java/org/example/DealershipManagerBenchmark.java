@@ -0,0 +1,134 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fleet-wide DealershipManager operations: listing every vehicle, price and date range
+ * queries, writing a full snapshot and importing an XML feed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DealershipManagerBenchmark {
+    @Param({"10000", "100000"})
+    private int fleetSize;
+
+    private File directory;
+    private File inventoryFile;
+    private File xmlFile;
+    private DealershipManager manager;
+    private DealershipManager importManager;
+    private File importInventoryFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("manager-benchmark").toFile();
+        inventoryFile = new File(directory, "inventory.json");
+        xmlFile = new File(directory, "feed.xml");
+
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(100);
+        List<Vehicle> vehicles = new ArrayList<>(fleetSize);
+        generator.generate(fleetSize, vehicles::add);
+        manager = new DealershipManager();
+        manager.ingestVehicles(vehicles, inventoryFile);
+
+        InventoryGenerator feedGenerator = new InventoryGenerator(43);
+        feedGenerator.setDealerCount(100);
+        feedGenerator.setIdPrefix("X");
+        feedGenerator.writeXml(fleetSize, xmlFile);
+    }
+
+    /**
+     * Every import starts from an empty manager and journal
+     */
+    @Setup(Level.Invocation)
+    public void setUpImport() throws IOException {
+        importManager = new DealershipManager();
+        importInventoryFile = new File(directory, "import.json");
+        Files.deleteIfExists(InventoryJournal.journalFileFor(importInventoryFile).toPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.closeJournal();
+        importManager.closeJournal();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public List<Vehicle> getVehiclesForDisplay() {
+        return manager.getVehiclesForDisplay();
+    }
+
+    /**
+     * Walks the whole fleet the way the GUI does, should allocate nothing once the view is cached
+     */
+    @Benchmark
+    public double iterateFleet() {
+        double total = 0;
+        for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
+            total += vehicle.getPrice();
+        }
+        return total;
+    }
+
+    /**
+     * Available SUVs between $20,000 and $30,000, filtering every vehicle
+     */
+    @Benchmark
+    public int priceRangeScan() {
+        int matches = 0;
+        for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
+            if (vehicle.getPrice() >= 20_000 && vehicle.getPrice() <= 30_000 && vehicle instanceof SUV && !vehicle.isRented()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * The same vehicles from the price index
+     */
+    @Benchmark
+    public int priceRangeIndexed() {
+        return manager.findVehiclesByPrice(20_000, 30_000,
+                vehicle -> vehicle instanceof SUV && !vehicle.isRented(), Integer.MAX_VALUE, false).size();
+    }
+
+    /**
+     * The ten most recently acquired vehicles from the acquisition date index
+     */
+    @Benchmark
+    public List<Vehicle> newestTen() {
+        return manager.findVehiclesAcquiredBetween(null, null, null, 10, true);
+    }
+
+    @Benchmark
+    public void saveState() {
+        manager.saveState(inventoryFile);
+    }
+
+    @Benchmark
+    public IngestionReport importXMLFile() {
+        IngestionReport report = importManager.ingestXMLFile(xmlFile, importInventoryFile);
+        importManager.closeJournal();
+        return report;
+    }
+}
@@ -0,0 +1,116 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for InventoryServer over localhost. Many client threads share one HttpClient, which
+ * keeps its connections alive between requests, so the numbers are request handling and not
+ * connection setup. Rentals wait until they are durable, so concurrent rentals share fsyncs
+ * through the pipeline behind the server.
+ * Server errors (5xx) are counted and fail the trial.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class InventoryServerBenchmark {
+    private static final int VEHICLES = 10_000;
+
+    private File inventoryFile;
+    private DealershipManager manager;
+    private InventoryCommandPipeline pipeline;
+    private InventoryServer server;
+    private HttpClient client;
+    private String baseUrl;
+    private String[] vehicleIds;
+    private final AtomicLong serverErrors = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inventoryFile = Files.createTempFile("server-benchmark", ".json").toFile();
+
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(4);
+        generator.setRentalRatio(0);
+        generator.setTypeMix(1, 1, 1, 0);
+        List<Vehicle> vehicles = new ArrayList<>(VEHICLES);
+        generator.generate(VEHICLES, vehicles::add);
+
+        manager = new DealershipManager();
+        manager.ingestVehicles(vehicles, inventoryFile);
+        manager.saveState(inventoryFile);
+        vehicleIds = vehicles.stream().map(Vehicle::getVehicleId).toArray(String[]::new);
+
+        pipeline = new InventoryCommandPipeline(manager, inventoryFile);
+        pipeline.start();
+        server = new InventoryServer(manager, pipeline, 0);
+        server.start();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + server.getPort();
+    }
+
+    @TearDown(Level.Iteration)
+    public void compact() {
+        manager.saveState(inventoryFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+        pipeline.close();
+        manager.closeJournal();
+        inventoryFile.delete();
+        InventoryJournal.journalFileFor(inventoryFile).delete();
+        if (serverErrors.get() > 0) {
+            throw new IllegalStateException(serverErrors.get() + " requests failed with a server error");
+        }
+    }
+
+    /**
+     * Looks up one vehicle by ID through the search endpoint
+     */
+    @Benchmark
+    public int searchById() throws IOException, InterruptedException {
+        String vehicleId = vehicleIds[ThreadLocalRandom.current().nextInt(vehicleIds.length)];
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/vehicles?type=ID&q=" + vehicleId)).GET());
+    }
+
+    /**
+     * Rents a random vehicle, or returns it if it is already rented, and waits for the answer
+     */
+    @Benchmark
+    public int rentOrReturn() throws IOException, InterruptedException {
+        String vehicleId = vehicleIds[ThreadLocalRandom.current().nextInt(vehicleIds.length)];
+        if (manager.findVehicle(vehicleId).isRented()) {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + "/vehicles/" + vehicleId + "/return"))
+                    .POST(HttpRequest.BodyPublishers.noBody()));
+        }
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/vehicles/" + vehicleId + "/rent"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"start_date\":\"03/17/2030\",\"end_date\":\"03/23/2030\"}")));
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        int status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status >= 500) {
+            serverErrors.incrementAndGet();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing inventory files. Run with the gc profiler (on by default in the
+ * benchmark profile) and divide gc.alloc.rate.norm by inventorySize for the bytes
+ * allocated per saved vehicle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JSONFileHandlerBenchmark {
+    @Param({"10000", "100000"})
+    private int inventorySize;
+
+    @Param({"false", "true"})
+    private boolean compactOutput;
+
+    private final JSONFileHandler handler = new JSONFileHandler();
+    private List<Vehicle> vehicles;
+    private File readFile;
+    private File writeFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        handler.setCompactOutput(compactOutput);
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(100);
+        vehicles = new ArrayList<>(inventorySize);
+        generator.generate(inventorySize, vehicles::add);
+        readFile = Files.createTempFile("inventory-read", ".json").toFile();
+        writeFile = Files.createTempFile("inventory-write", ".json").toFile();
+        handler.writeInventory(vehicles, readFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        readFile.delete();
+        writeFile.delete();
+    }
+
+    @Benchmark
+    public int readInventory(Blackhole blackhole) {
+        return handler.readInventory(readFile, blackhole::consume);
+    }
+
+    @Benchmark
+    public void writeInventory() {
+        handler.writeInventory(vehicles, writeFile);
+    }
+}
@@ -0,0 +1,85 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable rentals through InventoryCommandPipeline. Each operation waits until its change is
+ * forced to disk. With a batch size of 1 every change pays for its own fsync; larger batches
+ * share one fsync between all the changes that queued up behind it.
+ * Compare throughput and average latency across maxBatchSize and lingerMillis.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class PipelineBenchmark {
+    private static final int VEHICLES = 10_000;
+
+    @Param({"1", "64", "512"})
+    private int maxBatchSize;
+
+    @Param({"0", "1"})
+    private long lingerMillis;
+
+    private File inventoryFile;
+    private DealershipManager manager;
+    private InventoryCommandPipeline pipeline;
+    private String[] vehicleIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inventoryFile = Files.createTempFile("pipeline-benchmark", ".json").toFile();
+
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(1);
+        generator.setRentalRatio(0);
+        generator.setTypeMix(1, 1, 1, 0);
+        List<Vehicle> vehicles = new ArrayList<>(VEHICLES);
+        generator.generate(VEHICLES, vehicles::add);
+
+        manager = new DealershipManager();
+        manager.ingestVehicles(vehicles, inventoryFile);
+        manager.saveState(inventoryFile);
+        vehicleIds = vehicles.stream().map(Vehicle::getVehicleId).toArray(String[]::new);
+
+        pipeline = new InventoryCommandPipeline(manager, inventoryFile, 4096, maxBatchSize, lingerMillis);
+        pipeline.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void compact() {
+        manager.saveState(inventoryFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.close();
+        System.out.println("Changes per commit: " + (double) pipeline.getCommandCount() / pipeline.getCommitCount());
+        manager.closeJournal();
+        inventoryFile.delete();
+        InventoryJournal.journalFileFor(inventoryFile).delete();
+    }
+
+    /**
+     * Rents a random vehicle, or returns it if it is already rented, and waits until that is durable
+     */
+    @Benchmark
+    public boolean durableRentOrReturn() {
+        String vehicleId = vehicleIds[ThreadLocalRandom.current().nextInt(vehicleIds.length)];
+        if (manager.findVehicle(vehicleId).isRented()) {
+            return pipeline.returnVehicle("1", vehicleId).join();
+        }
+        return pipeline.rentVehicle("1", vehicleId, "03/17/2030", "03/23/2030").join();
+    }
+}
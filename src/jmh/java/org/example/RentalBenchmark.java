@@ -0,0 +1,95 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Many counters booking the same few cars at once. Every successful rental is counted against
+ * its vehicle before the renter returns it, so a second renter getting the same car shows up
+ * as a double booking and fails the benchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RentalBenchmark {
+    @Param({"1", "16", "1024"})
+    private int vehicleCount;
+
+    private DealershipManager manager;
+    private Vehicle[] vehicles;
+    private AtomicInteger[] renters;                          // Renters currently holding each vehicle
+    private final AtomicLong doubleBookings = new AtomicLong();
+    private final Date startDate = new Date(1_900_000_000_000L);
+    private final Date endDate = new Date(1_900_500_000_000L);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(1);
+        generator.setRentalRatio(0);
+        generator.setTypeMix(1, 1, 1, 0);
+        List<Vehicle> fleet = new ArrayList<>(vehicleCount);
+        generator.generate(vehicleCount, fleet::add);
+
+        manager = new DealershipManager();
+        manager.ingestVehicles(fleet, null);
+        vehicles = fleet.toArray(new Vehicle[0]);
+        renters = new AtomicInteger[vehicleCount];
+        for (int i = 0; i < vehicleCount; i++) {
+            renters[i] = new AtomicInteger();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        if (doubleBookings.get() != 0) {
+            throw new IllegalStateException(doubleBookings.get() + " double bookings");
+        }
+    }
+
+    /**
+     * Rents a random vehicle and, if that worked, returns it again
+     */
+    @Benchmark
+    public boolean rentAndReturn() {
+        int index = ThreadLocalRandom.current().nextInt(vehicles.length);
+        Vehicle vehicle = vehicles[index];
+        if (!vehicle.rent(startDate, endDate)) {
+            return false;
+        }
+        checkSingleRenter(index);
+        return vehicle.returnVehicle();
+    }
+
+    /**
+     * The same through DealershipManager, with the date parsing and index lookup of the real API
+     */
+    @Benchmark
+    public boolean managerRentAndReturn() {
+        int index = ThreadLocalRandom.current().nextInt(vehicles.length);
+        Vehicle vehicle = vehicles[index];
+        if (!manager.rentVehicle("1", vehicle.getVehicleId(), "03/17/2030", "03/23/2030", null)) {
+            return false;
+        }
+        checkSingleRenter(index);
+        return manager.returnVehicle("1", vehicle.getVehicleId(), null);
+    }
+
+    private void checkSingleRenter(int index) {
+        if (renters[index].incrementAndGet() != 1) {
+            doubleBookings.incrementAndGet();
+        }
+        renters[index].decrementAndGet();
+    }
+}
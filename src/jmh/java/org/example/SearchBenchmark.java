@@ -0,0 +1,81 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The GUI search predicate applied to the whole fleet, the way performSearch does it,
+ * against the same search answered by an InventoryIndex.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int fleetSize;
+
+    @Param({"All Fields", "Manufacturer", "ID", VehicleSearch.FUZZY})
+    private String searchType;
+
+    @Param({"toy", "v1234", "toyta"})
+    private String query;
+
+    private List<Vehicle> vehicles;
+    private File directory;
+    private DealershipManager manager;
+    private InventoryIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(100);
+        vehicles = new ArrayList<>(fleetSize);
+        generator.generate(fleetSize, vehicles::add);
+
+        directory = Files.createTempDirectory("search-benchmark").toFile();
+        manager = new DealershipManager();
+        manager.ingestVehicles(vehicles, new File(directory, "inventory.json"));
+        index = new InventoryIndex(manager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        index.close();
+        manager.closeJournal();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public int fullScan() {
+        int matches = 0;
+        for (Vehicle vehicle : vehicles) {
+            if (VehicleSearch.matchesSearchCriteria(vehicle, searchType, query)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * The same search from the bitmap and trigram indexes
+     */
+    @Benchmark
+    public int indexed() {
+        return index.search(searchType, query).getCount();
+    }
+}
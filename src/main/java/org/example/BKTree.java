@@ -0,0 +1,192 @@
+package org.example;
+
+import java.util.*;
+
+/**
+ * The BKTree class finds the strings within an edit distance of a query, like the manufacturers
+ * close to a misspelled "Toyta". Distances are Levenshtein distances: the number of characters
+ * inserted, deleted or replaced to turn one string into the other.
+ * <p>
+ * Every node keeps its children by their distance to it. Since the distance obeys the triangle
+ * inequality, a string within maxDistance of the query can only be under a child whose distance
+ * is within maxDistance of the query's distance to the node, so a search skips most of the tree.
+ * <p>
+ * Strings are compared as they are given, callers lowercase them first to ignore case.
+ * Strings can't be removed. The class is not thread-safe, see InventoryIndex.
+ */
+public class BKTree {
+    private Node root;
+    private int size;
+
+    /**
+     * Adds a string with a number it is found by. Adding a string again adds the number to it.
+     * @param text The string
+     * @param id The number
+     */
+    public void add(String text, int id) {
+        if (root == null) {
+            root = new Node(text);
+            root.add(id);
+            size++;
+            return;
+        }
+
+        Node node = root;
+        while (true) {
+            int distance = distance(text, node.text);
+            if (distance == 0) {
+                node.add(id);
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                child = new Node(text);
+                child.add(id);
+                node.children.put(distance, child);
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Finds the strings within an edit distance of a query
+     * @param query The text to search for
+     * @param maxDistance The largest distance to accept
+     * @return The matches, closest first, strings at the same distance in alphabetical order
+     */
+    public List<Match> search(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) return matches;
+
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(query, node.text);
+            if (distance <= maxDistance) {
+                matches.add(new Match(node.text, distance, Arrays.copyOf(node.ids, node.idCount)));
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::getDistance).thenComparing(Match::getText));
+        return matches;
+    }
+
+    /**
+     * Gets the number of distinct strings
+     * @return The number of strings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calculates the Levenshtein distance between two strings
+     * @param a The first string
+     * @param b The second string
+     * @return The number of single character inserts, deletes and replacements from a to b
+     */
+    public static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int replace = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(replace, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Checks whether two strings are within an edit distance, stopping as soon as they can't be
+     * @param a The first string
+     * @param b The second string
+     * @param maxDistance The largest distance to accept
+     * @return true if distance(a, b) is at most maxDistance
+     */
+    public static boolean isWithin(String a, String b, int maxDistance) {
+        if (Math.abs(a.length() - b.length()) > maxDistance) return false;
+
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int replace = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(replace, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            // Distances never shrink from one row to the next
+            if (rowMin > maxDistance) return false;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= maxDistance;
+    }
+
+    /**
+     * A string found by a search, with its distance to the query and the numbers it was added with
+     */
+    public static final class Match {
+        private final String text;
+        private final int distance;
+        private final int[] ids;
+
+        Match(String text, int distance, int[] ids) {
+            this.text = text;
+            this.distance = distance;
+            this.ids = ids;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        public int[] getIds() {
+            return ids;
+        }
+    }
+
+    private static final class Node {
+        private final String text;
+        private final Map<Integer, Node> children = new HashMap<>(); // Child by its distance to this node
+        private int[] ids = new int[1];
+        private int idCount;
+
+        Node(String text) {
+            this.text = text;
+        }
+
+        void add(int id) {
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, idCount * 2);
+            }
+            ids[idCount++] = id;
+        }
+    }
+}
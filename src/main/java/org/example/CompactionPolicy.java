@@ -0,0 +1,71 @@
+package org.example;
+
+/**
+ * The CompactionPolicy class holds the thresholds that decide when the inventory journal
+ * is folded into a fresh snapshot. Compaction starts as soon as any one threshold is reached.
+ */
+public class CompactionPolicy {
+    private final long maxRecords;              // Journal records before compacting
+    private final long maxBytes;                // Journal size in bytes before compacting
+    private final long maxAgeMillis;            // Age of the oldest uncompacted record before compacting
+    private final long checkIntervalMillis;     // How often the background compactor checks the thresholds
+    private final long recoveryTargetMillis;    // Cold-start recovery time we want to stay under
+
+    /**
+     * Constructor that initialize a CompactionPolicy
+     * @param maxRecords Journal records before compacting
+     * @param maxBytes Journal size in bytes before compacting
+     * @param maxAgeMillis Age of the oldest uncompacted record before compacting
+     * @param checkIntervalMillis How often the thresholds are checked
+     * @param recoveryTargetMillis Cold-start recovery time to stay under
+     */
+    public CompactionPolicy(long maxRecords, long maxBytes, long maxAgeMillis,
+                            long checkIntervalMillis, long recoveryTargetMillis) {
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.recoveryTargetMillis = recoveryTargetMillis;
+    }
+
+    /**
+     * Gets the default policy: 10,000 records, 4 MB or 10 minutes, checked every 5 seconds,
+     * with a recovery target of 2 seconds
+     * @return The default compaction policy
+     */
+    public static CompactionPolicy defaults() {
+        return new CompactionPolicy(10_000, 4L * 1024 * 1024, 10 * 60_000L, 5_000, 2_000);
+    }
+
+    /**
+     * Checks if the journal has reached any of the thresholds
+     * @param records Number of records in the journal
+     * @param bytes Size of the journal in bytes
+     * @param ageMillis Age of the oldest record in the journal
+     * @return true if the journal should be compacted, otherwise false
+     */
+    public boolean isExceeded(long records, long bytes, long ageMillis) {
+        if (records == 0) return false;
+        return records >= maxRecords || bytes >= maxBytes || ageMillis >= maxAgeMillis;
+    }
+
+    public long getMaxRecords() {
+        return maxRecords;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    public long getCheckIntervalMillis() {
+        return checkIntervalMillis;
+    }
+
+    public long getRecoveryTargetMillis() {
+        return recoveryTargetMillis;
+    }
+}
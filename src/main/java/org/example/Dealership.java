@@ -2,18 +2,34 @@ package org.example;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
  * The Dealership class is a car dealership that manages an inventory of vehicle.
+ * Every dealership has its own lock guarding its inventory. Operations that touch more than
+ * one dealership take their locks in dealer ID order, see lockAll.
+ * Readers get a shared read-only snapshot of the inventory that is only rebuilt after it changed.
  */
 public class Dealership {
+    // Lock order for operations that hold more than one dealership lock
+    private static final Comparator<Dealership> LOCK_ORDER = Comparator
+            .comparing(Dealership::getDealerId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(System::identityHashCode);
+
     private String dealerId;                            // Unique id for dealership
-    private boolean isAcquisitionEnabled = true;        // Controls whether vehicle acquisition is allowed
-    private List<Vehicle> vehicles = new ArrayList<>(); // List that stores vehicle in the dealership
-    private String name;                                // Dealership name for display
+    private volatile boolean isAcquisitionEnabled = true; // Controls whether vehicle acquisition is allowed
+    private Map<String, Vehicle> vehicles = new LinkedHashMap<>(); // Vehicles keyed by ID, kept in insertion order
+    private volatile String name;                       // Dealership name for display
+    private final ReentrantLock lock = new ReentrantLock(); // Guards vehicles
+    private volatile List<Vehicle> snapshot;            // Read-only copy of vehicles, null after a change
 
     /**
      * Constructor that initialize a Dealership
@@ -61,13 +77,60 @@ public class Dealership {
      * @return true if vehicle was added, false otherwise
      */
     public boolean addVehicle(Vehicle vehicle) {
-        // Check if vehicle with same ID already exists
-        if (vehicles.stream().anyMatch(v -> v.getVehicleId().equals(vehicle.getVehicleId()))) {
-            return false;
+        lock.lock();
+        try {
+            // Add the new vehicle unless one with the same ID already exists
+            if (vehicles.putIfAbsent(vehicle.getVehicleId(), vehicle) != null) return false;
+            snapshot = null;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a vehicle from the inventory
+     * @param vehicleId The ID of the vehicle you want removed
+     * @return The removed vehicle, or null if there was no vehicle with that ID
+     */
+    public Vehicle removeVehicle(String vehicleId) {
+        lock.lock();
+        try {
+            Vehicle removed = vehicles.remove(vehicleId);
+            if (removed != null) {
+                snapshot = null;
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if a vehicle with the given ID is in the inventory
+     * @param vehicleId The ID to look for
+     * @return true if the vehicle is in the inventory, otherwise false
+     */
+    public boolean containsVehicle(String vehicleId) {
+        lock.lock();
+        try {
+            return vehicles.containsKey(vehicleId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of vehicles in the inventory
+     * @return The vehicle count
+     */
+    public int getVehicleCount() {
+        lock.lock();
+        try {
+            return vehicles.size();
+        } finally {
+            lock.unlock();
         }
-        // Add the new vehicle
-        vehicles.add(vehicle);
-        return true;
     }
 
     /**
@@ -76,15 +139,30 @@ public class Dealership {
      */
     public void exportToJSON(File file) {
         JSONFileHandler handler = new JSONFileHandler();
-        handler.writeInventory(vehicles, file);
+        handler.writeInventory(getVehicles(), file);
     }
 
     /**
-     * Gets a copy of the vehicle inventory
+     * Gets a read-only snapshot of the vehicle inventory. The snapshot is shared between callers
+     * and only copied again by the first call after the inventory changed, so repeated reads
+     * neither copy nor lock.
      * @return A list of vehicles in the inventory
      */
     public List<Vehicle> getVehicles() {
-        return new ArrayList<>(vehicles);
+        List<Vehicle> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        lock.lock();
+        try {
+            if (snapshot == null) {
+                snapshot = Collections.unmodifiableList(new ArrayList<>(vehicles.values()));
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -111,6 +189,40 @@ public class Dealership {
         this.name = name;
     }
 
+    /**
+     * Gets the lock that guards the inventory, held by DealershipManager while it changes
+     * the inventory and journals the change
+     * @return The dealership lock
+     */
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Locks several dealerships in dealer ID order. Every caller that holds more than one
+     * dealership lock goes through here, so two operations can never wait on each other.
+     * @param dealerships The dealerships to lock
+     * @return The locked dealerships in lock order, pass them to unlockAll
+     */
+    static List<Dealership> lockAll(Collection<Dealership> dealerships) {
+        List<Dealership> ordered = new ArrayList<>(dealerships);
+        ordered.sort(LOCK_ORDER);
+        for (Dealership dealership : ordered) {
+            dealership.lock.lock();
+        }
+        return ordered;
+    }
+
+    /**
+     * Unlocks dealerships locked with lockAll
+     * @param locked The list returned by lockAll
+     */
+    static void unlockAll(List<Dealership> locked) {
+        for (int i = locked.size() - 1; i >= 0; i--) {
+            locked.get(i).lock.unlock();
+        }
+    }
+
     /**
      * Transfers a vehicle to another dealership
      * @param vehicleId The ID of the vehicle to transfer
@@ -118,27 +230,53 @@ public class Dealership {
      * @return true if transfer was successful, false otherwise
      */
     public boolean transferVehicle(String vehicleId, Dealership targetDealership) {
-        Vehicle vehicleToTransfer = null;
-        for (Vehicle vehicle : vehicles) {
-            if (vehicle.getVehicleId().equals(vehicleId)) {
-                vehicleToTransfer = vehicle;
-                break;
+        List<Dealership> locked = lockAll(List.of(this, targetDealership));
+        try {
+            Vehicle vehicleToTransfer = vehicles.get(vehicleId);
+
+            if (vehicleToTransfer == null) return false;
+
+            // Can't transfer a rented vehicle, and it can't be rented while it moves
+            if (!vehicleToTransfer.hold()) return false;
+
+            try {
+                return moveVehicle(vehicleId, targetDealership);
+            } finally {
+                vehicleToTransfer.release();
             }
+        } finally {
+            unlockAll(locked);
         }
+    }
 
-        if (vehicleToTransfer == null) return false;
+    /**
+     * Moves a vehicle to another dealership whatever its rental state. Journal replay uses this
+     * for transfers that were checked when they were made.
+     * @param vehicleId The ID of the vehicle to move
+     * @param targetDealership The dealership to move it to
+     * @return true if the vehicle was moved, false if it is not here or the target has its ID
+     */
+    boolean moveVehicle(String vehicleId, Dealership targetDealership) {
+        List<Dealership> locked = lockAll(List.of(this, targetDealership));
+        try {
+            Vehicle vehicleToMove = vehicles.get(vehicleId);
+            if (vehicleToMove == null) return false;
 
-        // Can't transfer a rented vehicle
-        if (vehicleToTransfer.isRented()) return false;
+            // Don't drop the vehicle if the target already has one with the same ID
+            if (targetDealership.containsVehicle(vehicleId)) return false;
 
-        // Remove from this dealership
-        vehicles.remove(vehicleToTransfer);
+            // Remove from this dealership
+            vehicles.remove(vehicleId);
+            snapshot = null;
 
-        // Update vehicle's dealerId
-        vehicleToTransfer.setDealerId(targetDealership.getDealerId());
+            // Update vehicle's dealerId
+            vehicleToMove.setDealerId(targetDealership.getDealerId());
 
-        // Add to target dealership
-        return targetDealership.addVehicle(vehicleToTransfer);
+            // Add to target dealership
+            return targetDealership.addVehicle(vehicleToMove);
+        } finally {
+            unlockAll(locked);
+        }
     }
 
     /**
@@ -147,16 +285,17 @@ public class Dealership {
      * @return The found vehicle or null
      */
     public Vehicle findVehicleById(String vehicleId) {
-        for (Vehicle vehicle : vehicles) {
-            if (vehicle.getVehicleId().equals(vehicleId)) {
-                return vehicle;
-            }
+        lock.lock();
+        try {
+            return vehicles.get(vehicleId);
+        } finally {
+            lock.unlock();
         }
-        return null;
     }
 
     /**
-     * Rents a vehicle by ID
+     * Rents a vehicle by ID. The rental itself is a compare-and-set on the vehicle,
+     * the dealership is only locked to look the vehicle up.
      * @param vehicleId The ID of the vehicle to rent
      * @param startDate The rental start date
      * @param endDate The rental end date
@@ -187,8 +326,9 @@ public class Dealership {
         if (name != null && !name.isEmpty()) {
             System.out.println("Dealership Name: " + name);
         }
-        System.out.println("Total vehicles: " + vehicles.size());
-        vehicles.forEach(v -> System.out.println(
+        List<Vehicle> inventory = getVehicles();
+        System.out.println("Total vehicles: " + inventory.size());
+        inventory.forEach(v -> System.out.println(
                 "Type: " + v.getClass().getSimpleName() +
                         ", ID: " + v.getVehicleId() +
                         ", Manufacturer: " + v.getManufacturer() +
@@ -1,8 +1,13 @@
 package org.example;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -20,16 +25,37 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * DealershipJavaFXGUI class provides a JavaFX-based graphical user interface for managing
  * vehicle dealership operations. This class handles all user interactions, input validation,
  * and visual display of dealership data.
+ * <p>
+ * File I/O runs as Tasks on a background executor and searches and sorting on a search
+ * executor of their own, so the JavaFX Application Thread only updates controls and a search
+ * does not wait for an import to finish. The inventory is shown in a TableView that only
+ * creates cells for the visible rows. The status bar shows the progress of
+ * the running task and can cancel it. Searches run as the user types, once typing pauses.
+ * <p>
+ * The table, the dealer dropdown and the dashboard statistics follow the InventoryEvents of
+ * the manager, so updating them costs as much as what changed rather than the whole inventory.
  */
 public class DealershipJavaFXGUI extends Application {
     // Constants for file paths and colors
@@ -37,6 +63,10 @@ public class DealershipJavaFXGUI extends Application {
     private static final String EXPORT_PATH = "src/main/resources/export.json";
     private static final String APP_TITLE = "Dealership Management System";
     private static final Color THEME_COLOR = Color.DODGERBLUE; // Main color
+    private static final int MAX_ROW_UPDATES = 1000;           // More changed vehicles than this collect the rows again
+    private static final long SEARCH_DELAY_MILLIS = 250;       // Typing pause before the search runs
+    private static final long FIRST_RESULTS_MILLIS = 30;       // When a search shows its first matches
+    private static final Comparator<Vehicle> BY_VEHICLE_ID = Comparator.comparing(Vehicle::getVehicleId);
 
     // Dark mode properties
     private boolean darkModeEnabled = false;
@@ -48,6 +78,45 @@ public class DealershipJavaFXGUI extends Application {
     // Core business logic manager
     private DealershipManager manager;
 
+    // Bitmap indexes over the searchable fields, kept up to date by the manager
+    private InventoryIndex inventoryIndex;
+
+    // Applies and persists inventory changes off the FX thread
+    private InventoryCommandPipeline pipeline;
+
+    // Inventory changes waiting to be applied on the FX thread
+    private final Queue<InventoryEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean eventsScheduled = new AtomicBoolean();     // applyInventoryEvents is queued
+    private final InventoryListener inventoryListener = this::queueInventoryEvent;
+
+    // Runs file I/O off the FX thread, one at a time in the order they were started
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gui-background");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Runs searches, refreshes and sorts off the FX thread. A new one cancels the one it replaces,
+    // so one thread is enough and they never queue behind a long import.
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gui-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Task<?> backgroundTask;                     // Last task started on backgroundExecutor
+
+    // Status bar components
+    private HBox statusBar;
+    private Label statusLabel;
+    private ProgressBar progressBar;
+    private Button cancelButton;
+    private Task<?> statusTask;      // The task shown in the status bar
+    private Task<?> displayTask;     // The refresh or search that fills the inventory table next
+    private Task<?> sortTask;        // The sort that orders the inventory table next
+
+    // Reports FX thread stalls when started with -Ddealership.fxStallBudgetMillis=<millis>
+    private FxStallWatchdog stallWatchdog;
+
     // Input fields
     private TextField dealerIdField;
     private ComboBox<String> dealerIdComboBox;
@@ -60,14 +129,30 @@ public class DealershipJavaFXGUI extends Application {
     // Search components
     private TextField searchField;
     private ComboBox<String> searchTypeComboBox;
+    private PauseTransition searchDelay;     // Runs the search once typing pauses
 
     // Main GUI components
-    private TextArea displayArea;
+    private Label inventoryTitleLabel;
+    private TableView<Vehicle> inventoryTable;
     private FileChooser fileChooser;
 
+    // Inventory table state
+    private final Map<TableColumn<Vehicle, ?>, Comparator<Vehicle>> columnComparators = new HashMap<>(); // Sorts by each column
+    private final Set<TableColumn<Vehicle, ?>> changingColumns = new HashSet<>(); // Columns whose values change in place
+    private String displayTitle = "Current Inventory";     // Title of the last refresh or search
+    private Predicate<Vehicle> displayFilter;              // Filter of the last search, null for all vehicles
+    private Supplier<List<Vehicle>> displayLookup;         // Finds the matches of the last search in an index, or null to scan
+    private String displayPlaceholder = "No vehicles in inventory";
+    private Comparator<Vehicle> rowOrder = BY_VEHICLE_ID;  // The order the table items are in
+    private boolean rowOrderChanges;                       // The order uses a column whose values change in place
+    private List<Object> sortedBy = List.of();             // The columns and directions the items are sorted or being sorted by
+    private final Set<Vehicle> changedRows = Collections.newSetFromMap(new IdentityHashMap<>()); // Changed while new items are prepared
+    private DashboardStats fleetStats = new DashboardStats(); // Kept up to date from inventory events
+
     @Override
     public void start(Stage primaryStage) {
         manager = new DealershipManager();
+        inventoryIndex = new InventoryIndex(manager);
 
         // Set up the main layout
         BorderPane mainLayout = new BorderPane();
@@ -88,19 +173,21 @@ public class DealershipJavaFXGUI extends Application {
         VBox centerContent = new VBox(searchArea, centerPane);
         VBox.setVgrow(centerPane, Priority.ALWAYS);
 
-        // Create display area with resizable capability
-        displayArea = createDisplayArea();
-        ScrollPane scrollPane = new ScrollPane(displayArea);
-        scrollPane.setFitToWidth(true);
-        scrollPane.setPrefHeight(300);
-        scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.ALWAYS);
+        // Create the inventory table, it scrolls by itself
+        inventoryTitleLabel = new Label("Current Inventory");
+        inventoryTitleLabel.setStyle("-fx-font-weight: bold;");
+        inventoryTable = createInventoryTable();
+        VBox inventoryPane = new VBox(5, inventoryTitleLabel, inventoryTable);
+        inventoryPane.setPadding(new Insets(5, 10, 5, 10));
+        VBox.setVgrow(inventoryTable, Priority.ALWAYS);
 
         // Make it resizable
         SplitPane mainSplitPane = new SplitPane();
         mainSplitPane.setOrientation(javafx.geometry.Orientation.VERTICAL);
-        mainSplitPane.getItems().addAll(centerContent, scrollPane);
+        mainSplitPane.getItems().addAll(centerContent, inventoryPane);
         mainSplitPane.setDividerPositions(0.6);
         mainLayout.setCenter(mainSplitPane);
+        mainLayout.setBottom(createStatusBar());
 
         // Set up the scene
         Scene scene = new Scene(mainLayout, 1000, 700);
@@ -115,10 +202,149 @@ public class DealershipJavaFXGUI extends Application {
         // Show the stage
         primaryStage.show();
 
+        Long stallBudget = Long.getLong("dealership.fxStallBudgetMillis");
+        if (stallBudget != null) {
+            stallWatchdog = new FxStallWatchdog(stallBudget);
+            stallWatchdog.start();
+        }
+
+        // Changes made while the inventory loads wait in the pipeline until it is started
+        pipeline = new InventoryCommandPipeline(manager, new File(INVENTORY_PATH));
+
+        // Show changes as they are made, whoever makes them
+        manager.addInventoryListener(inventoryListener);
+
         // Load initial data
         loadInitialInventory();
     }
 
+    /**
+     * Starts applying queued changes and compacting the journal, once the inventory is loaded
+     */
+    private void startInventoryServices() {
+        // Keep the inventory journal short in the background
+        manager.startCompaction(new File(INVENTORY_PATH), CompactionPolicy.defaults());
+        pipeline.start();
+    }
+
+    /**
+     * Waits for background tasks, commits queued changes, stops background compaction and closes
+     * the journal when the window closes
+     */
+    @Override
+    public void stop() {
+        manager.removeInventoryListener(inventoryListener);
+        inventoryIndex.close();
+        if (displayTask != null) {
+            displayTask.cancel();
+        }
+        searchExecutor.shutdownNow();
+        backgroundExecutor.shutdown();
+        try {
+            if (!backgroundExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("Background tasks still running at exit");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (pipeline != null) {
+            pipeline.close();
+        }
+        manager.stopCompaction();
+        manager.closeJournal();
+
+        if (stallWatchdog != null) {
+            stallWatchdog.close();
+            System.out.println("FX thread stalls: " + stallWatchdog.getStallCount() +
+                    ", longest: " + stallWatchdog.getLongestStallMillis() + " ms");
+        }
+    }
+
+    /**
+     * Runs a task on the background executor and shows its progress in the status bar
+     * @param task The task to run
+     * @param cancellable true if the Cancel button may stop the task
+     * @param onSucceeded Called on the FX thread with the result of the task
+     * @param errorPrefix Shown before the message if the task fails
+     */
+    private <T> void runInBackground(Task<T> task, boolean cancellable, Consumer<T> onSucceeded, String errorPrefix) {
+        backgroundTask = task;
+        runOn(backgroundExecutor, task, cancellable, onSucceeded, errorPrefix);
+    }
+
+    /**
+     * Runs a search, refresh or sort on the search executor. Its progress is only shown in the
+     * status bar if no file task is showing there.
+     * @param task The task to run
+     * @param onSucceeded Called on the FX thread with the result of the task
+     * @param errorPrefix Shown before the message if the task fails
+     */
+    private <T> void runSearch(Task<T> task, Consumer<T> onSucceeded, String errorPrefix) {
+        runOn(searchExecutor, task, true, onSucceeded, errorPrefix);
+    }
+
+    /**
+     * Runs a task on an executor, a search task does not take the status bar from a file task
+     */
+    private <T> void runOn(Executor executor, Task<T> task, boolean cancellable, Consumer<T> onSucceeded, String errorPrefix) {
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, e -> clearStatus(task));
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, e -> clearStatus(task));
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, e -> clearStatus(task));
+        task.setOnSucceeded(e -> onSucceeded.accept(task.getValue()));
+        task.setOnFailed(e -> {
+            Throwable error = task.getException();
+            error.printStackTrace();
+            showError(errorPrefix + error.getMessage());
+        });
+
+        boolean fileTaskShown = statusTask != null && statusTask == backgroundTask && !statusTask.isDone();
+        if (executor == backgroundExecutor || !fileTaskShown) {
+            showStatus(task, cancellable);
+        }
+        executor.execute(task);
+    }
+
+    /**
+     * Shows the message and progress of a task in the status bar
+     */
+    private void showStatus(Task<?> task, boolean cancellable) {
+        statusTask = task;
+        statusLabel.textProperty().bind(task.messageProperty());
+        progressBar.progressProperty().bind(task.progressProperty());
+        cancelButton.setDisable(!cancellable);
+        statusBar.setVisible(true);
+    }
+
+    /**
+     * Hides the status bar if it still shows the given task
+     */
+    private void clearStatus(Task<?> task) {
+        if (statusTask != task) return;
+
+        statusTask = null;
+        statusLabel.textProperty().unbind();
+        progressBar.progressProperty().unbind();
+        statusBar.setVisible(false);
+    }
+
+    /**
+     * Handles the result of a queued inventory change on the FX thread once it is durable
+     * @param change The future returned by the pipeline
+     * @param onResult Called with the result of the change
+     * @param errorPrefix Shown before the message if the change failed with an exception
+     */
+    private void whenCommitted(CompletableFuture<Boolean> change, Consumer<Boolean> onResult, String errorPrefix) {
+        change.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                showError(errorPrefix + cause.getMessage());
+            } else {
+                onResult.accept(result);
+            }
+        }));
+    }
+
     /**
      * Creates the header panel with title
      */
@@ -156,23 +382,32 @@ public class DealershipJavaFXGUI extends Application {
 
         // Create search type combo box
         searchTypeComboBox = new ComboBox<>(FXCollections.observableArrayList(
-                "ID", "Manufacturer", "Model", "Dealer ID", "Type", "All Fields"));
+                "ID", "Manufacturer", "Model", "Dealer ID", "Type", "Price", "Acquired", "All Fields",
+                VehicleSearch.FUZZY));
         searchTypeComboBox.setValue("All Fields");
-        searchTypeComboBox.setPrefWidth(150);
+        searchTypeComboBox.setPrefWidth(170);
 
         // Create search text field
         searchField = new TextField();
         searchField.setPromptText("Enter search query");
         searchField.setPrefWidth(250);
 
-        // Remove the listener that performs search as user types
-        // Instead, only search when the button is clicked or Enter is pressed
+        // Search right away when Enter is pressed
         searchField.setOnAction(e -> performSearch(searchField.getText()));
 
-        // Still show all vehicles when search field is cleared
+        // Search as the user types once typing pauses, an empty field shows all vehicles
+        searchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MILLIS));
+        searchDelay.setOnFinished(e -> performSearch(searchField.getText()));
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            if (newValue == null || newValue.trim().isEmpty()) {
-                refreshDisplay(); // Show all vehicles when search field is cleared
+            // The search still running is for text that is gone, stop it now rather than after the pause
+            if (displayFilter != null && displayTask != null) {
+                displayTask.cancel();
+            }
+            searchDelay.playFromStart();
+        });
+        searchTypeComboBox.setOnAction(e -> {
+            if (!searchField.getText().trim().isEmpty()) {
+                searchDelay.playFromStart();
             }
         });
 
@@ -191,6 +426,27 @@ public class DealershipJavaFXGUI extends Application {
         return searchBox;
     }
 
+    /**
+     * Creates the status bar that shows the progress of background tasks
+     */
+    private HBox createStatusBar() {
+        statusLabel = new Label();
+        progressBar = new ProgressBar();
+        progressBar.setPrefWidth(200);
+        cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(e -> {
+            if (statusTask != null) {
+                statusTask.cancel();
+            }
+        });
+
+        statusBar = new HBox(10, progressBar, statusLabel, cancelButton);
+        statusBar.setPadding(new Insets(5, 10, 5, 10));
+        statusBar.setAlignment(Pos.CENTER_LEFT);
+        statusBar.setVisible(false);
+        return statusBar;
+    }
+
     /**
      * Creates the input panel with form fields
      */
@@ -415,15 +671,78 @@ public class DealershipJavaFXGUI extends Application {
     }
 
     /**
-     * Creates and sets up the display area
+     * Creates the inventory table with a sortable column per vehicle field.
+     * Sorting runs in the background, see sortRows.
+     */
+    private TableView<Vehicle> createInventoryTable() {
+        TableView<Vehicle> table = new TableView<>();
+        table.setPrefHeight(300);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPlaceholder(new Label("No vehicles in inventory"));
+
+        table.getColumns().add(createColumn("Type", vehicle -> vehicle.getClass().getSimpleName()));
+        table.getColumns().add(createColumn("ID", Vehicle::getVehicleId));
+        table.getColumns().add(createColumn("Manufacturer", Vehicle::getManufacturer));
+        table.getColumns().add(createColumn("Model", Vehicle::getModel));
+
+        TableColumn<Vehicle, Double> priceColumn = createColumn("Price", Vehicle::getPrice);
+        priceColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double price, boolean empty) {
+                super.updateItem(price, empty);
+                setText(empty || price == null ? null : String.format("$%.2f", price));
+            }
+        });
+        table.getColumns().add(priceColumn);
+
+        // Transfers and rentals change these without adding the vehicle again
+        TableColumn<Vehicle, String> dealerColumn = createColumn("Dealer", DealershipJavaFXGUI::getDealerInfo);
+        TableColumn<Vehicle, String> statusColumn = createColumn("Status", DealershipJavaFXGUI::getRentalStatus);
+        table.getColumns().add(dealerColumn);
+        table.getColumns().add(statusColumn);
+        changingColumns.add(dealerColumn);
+        changingColumns.add(statusColumn);
+
+        // The table sorts a copy of the rows in the background instead of its items in place
+        table.setSortPolicy(t -> {
+            sortRows();
+            return true;
+        });
+        return table;
+    }
+
+    /**
+     * Creates a table column whose cells show one value of the vehicle in their row
+     * @param title The column header
+     * @param value Gets the value from a vehicle
+     * @return The column, its comparator is registered for sorting
+     */
+    private <T extends Comparable<? super T>> TableColumn<Vehicle, T> createColumn(String title, Function<Vehicle, T> value) {
+        TableColumn<Vehicle, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
+        columnComparators.put(column, Comparator.comparing(value, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return column;
+    }
+
+    /**
+     * Gets the dealer ID with the dealer name if it is known
+     */
+    private static String getDealerInfo(Vehicle vehicle) {
+        String dealerInfo = vehicle.getDealerId();
+        if (vehicle.getMetadata().containsKey("dealer_name")) {
+            dealerInfo += " (" + vehicle.getMetadata().get("dealer_name") + ")";
+        }
+        return dealerInfo;
+    }
+
+    /**
+     * Gets the rental status shown for a vehicle
      */
-    private TextArea createDisplayArea() {
-        TextArea area = new TextArea();
-        area.setEditable(false);
-        area.setWrapText(true);
-        area.setPrefHeight(300);
-        area.setFont(Font.font("Monospaced", 12));
-        return area;
+    private static String getRentalStatus(Vehicle vehicle) {
+        if (vehicle instanceof SportsCar) {
+            return "NOT RENTABLE";
+        }
+        return vehicle.isRented() ? "RENTED" : "AVAILABLE";
     }
 
     /**
@@ -433,6 +752,28 @@ public class DealershipJavaFXGUI extends Application {
      * Shows the dashboard dialog
      */
     private void showDashboard() {
+        // The statistics are counted on load and kept up to date from inventory events
+        showDashboard(fleetStats);
+    }
+
+    /**
+     * Counts the vehicles by rental status, type and dealer from the bitmaps of the inventory index
+     */
+    private DashboardStats calculateStatistics() {
+        DashboardStats stats = new DashboardStats();
+        for (int count : inventoryIndex.getCounts(InventoryIndex.Field.TYPE).values()) {
+            stats.totalVehicles += count;
+        }
+        stats.rentedVehicles = inventoryIndex.getCounts(InventoryIndex.Field.STATUS).getOrDefault("RENTED", 0);
+        stats.vehiclesByType.putAll(inventoryIndex.getCounts(InventoryIndex.Field.TYPE));
+        stats.vehiclesByDealer.putAll(inventoryIndex.getCounts(InventoryIndex.Field.DEALER_ID));
+        return stats;
+    }
+
+    /**
+     * Shows the dashboard dialog for the given statistics
+     */
+    private void showDashboard(DashboardStats stats) {
         // Create a new dashboard dialog
         Dialog<Void> dialog = new Dialog<>();
         dialog.setTitle("Dealership Dashboard");
@@ -445,27 +786,12 @@ public class DealershipJavaFXGUI extends Application {
         dashboardLayout.setPrefWidth(800);
         dashboardLayout.setPrefHeight(500);
 
-        // Get all vehicles for statistics
-        List<Vehicle> allVehicles = manager.getVehiclesForDisplay();
-
-        // Calculate statistics
-        int totalVehicles = allVehicles.size();
-        long rentedVehicles = allVehicles.stream().filter(Vehicle::isRented).count();
+        // Statistics
+        int totalVehicles = stats.totalVehicles;
+        long rentedVehicles = stats.rentedVehicles;
         long availableVehicles = totalVehicles - rentedVehicles;
-
-        // Count by type
-        Map<String, Integer> vehiclesByType = new HashMap<>();
-        for (Vehicle vehicle : allVehicles) {
-            String type = vehicle.getClass().getSimpleName();
-            vehiclesByType.put(type, vehiclesByType.getOrDefault(type, 0) + 1);
-        }
-
-        // Count by dealer
-        Map<String, Integer> vehiclesByDealer = new HashMap<>();
-        for (Vehicle vehicle : allVehicles) {
-            String dealerId = vehicle.getDealerId();
-            vehiclesByDealer.put(dealerId, vehiclesByDealer.getOrDefault(dealerId, 0) + 1);
-        }
+        Map<String, Integer> vehiclesByType = stats.vehiclesByType;
+        Map<String, Integer> vehiclesByDealer = stats.vehiclesByDealer;
 
         // Create summary labels
         Label summaryLabel = new Label("Inventory Summary");
@@ -547,6 +873,7 @@ public class DealershipJavaFXGUI extends Application {
      * Performs a search based on the query and search type
      */
     private void performSearch(String query) {
+        searchDelay.stop();
         if (query == null || query.trim().isEmpty()) {
             // If search is empty, show all vehicles
             refreshDisplay();
@@ -559,134 +886,427 @@ public class DealershipJavaFXGUI extends Application {
         // Get search type
         String searchType = searchTypeComboBox.getValue();
 
-        // Get all vehicles
-        List<Vehicle> allVehicles = manager.getVehiclesForDisplay();
+        // Searches the index can narrow are looked up there and price and date ranges in the manager's
+        // sorted indexes. The others are scanned in the background and show their first matches early.
+        // The filter decides for vehicles that change later either way.
+        Supplier<List<Vehicle>> lookup = null;
+        if (InventoryIndex.isNarrowed(searchType, searchQuery)) {
+            lookup = () -> inventoryIndex.search(searchType, searchQuery).getVehicles();
+        } else if (searchType.equals("Price") || searchType.equals("Acquired")) {
+            lookup = () -> VehicleSearch.findInRange(manager, searchType, searchQuery);
+        }
+        updateDisplay("Search Results",
+                vehicle -> VehicleSearch.matchesSearchCriteria(vehicle, searchType, searchQuery),
+                lookup,
+                "No vehicles match your search criteria");
+    }
+
+    /**
+     * Loads initial inventory data from file if it exists
+     */
+    private void loadInitialInventory() {
+        File initialFile = new File(INVENTORY_PATH);
+        if (!initialFile.exists()) {
+            startInventoryServices();
+            return;
+        }
 
-        // Filter vehicles based on search criteria
-        List<Vehicle> filteredVehicles = allVehicles.stream()
-                .filter(vehicle -> matchesSearchCriteria(vehicle, searchType, searchQuery))
-                .collect(Collectors.toList());
+        // The table and the dealer dropdown are filled when the reload event arrives
+        Task<DashboardStats> task = new Task<>() {
+            @Override
+            protected DashboardStats call() {
+                updateMessage("Loading " + initialFile.getName() + "...");
+                manager.readInventoryFile(initialFile);
 
-        // Display filtered vehicles
-        displayFilteredVehicles(filteredVehicles);
+                // The index was rebuilt by the reload, and nothing changes the inventory until the
+                // pipeline is started, so these counts are exact
+                return calculateStatistics();
+            }
+        };
+        runInBackground(task, false, stats -> {
+            fleetStats = stats;
+            startInventoryServices();
+        }, "Error loading inventory: ");
     }
 
     /**
-     * Helper method to check if a vehicle matches search criteria
+     * Updates the dealer dropdown with current dealerships in the system
      */
-    private boolean matchesSearchCriteria(Vehicle vehicle, String searchType, String query) {
-        switch (searchType) {
-            case "ID":
-                return vehicle.getVehicleId().toLowerCase().contains(query);
-            case "Manufacturer":
-                return vehicle.getManufacturer().toLowerCase().contains(query);
-            case "Model":
-                return vehicle.getModel().toLowerCase().contains(query);
-            case "Dealer ID":
-                return vehicle.getDealerId().toLowerCase().contains(query);
-            case "Type":
-                return vehicle.getClass().getSimpleName().toLowerCase().contains(query);
-            case "All Fields":
-            default:
-                return vehicle.getVehicleId().toLowerCase().contains(query) ||
-                        vehicle.getManufacturer().toLowerCase().contains(query) ||
-                        vehicle.getModel().toLowerCase().contains(query) ||
-                        vehicle.getDealerId().toLowerCase().contains(query) ||
-                        vehicle.getClass().getSimpleName().toLowerCase().contains(query);
-        }
+    private void updateDealerDropdown() {
+        // Update the combo box
+        dealerIdComboBox.getItems().clear();
+        dealerIdComboBox.getItems().add("-- New Dealer --");
+        dealerIdComboBox.getItems().addAll(manager.getDealerIds());
     }
 
     /**
-     * Display filtered vehicles in the display area
+     * Updates the inventory table with current inventory information
      */
-    private void displayFilteredVehicles(List<Vehicle> vehicles) {
-        StringBuilder sb = new StringBuilder("Search Results:\n\n");
+    private void refreshDisplay() {
+        updateDisplay("Current Inventory", null, null, "No vehicles in inventory");
+    }
 
-        if (vehicles.isEmpty()) {
-            sb.append("No vehicles match your search criteria.\n");
-        } else {
-            vehicles.forEach(vehicle -> {
-                String rentalStatus = vehicle.isRented() ? "RENTED" : "AVAILABLE";
-                if (vehicle instanceof SportsCar) {
-                    rentalStatus = "NOT RENTABLE";
-                }
+    /**
+     * Collects and sorts the rows in the background and shows them once they are ready. After that
+     * the rows follow the inventory events, see applyInventoryEvents.
+     * A search shows the matches it has found so far after FIRST_RESULTS_MILLIS, and again each
+     * time it has run twice as long, so the first matches appear quickly on a large fleet while
+     * the extra sorting stays a fraction of the search.
+     * A newer refresh or search cancels the one still running.
+     * @param title Shown above the table with the number of rows
+     * @param filter Selects the vehicles to show, or null for all of them
+     * @param lookup Finds the vehicles the filter selects without a scan, or null to scan. Must return a new list.
+     * @param placeholder Shown in the table if there are no rows
+     */
+    private void updateDisplay(String title, Predicate<Vehicle> filter, Supplier<List<Vehicle>> lookup, String placeholder) {
+        if (displayTask != null) {
+            displayTask.cancel();
+        }
+        if (sortTask != null) {
+            sortTask.cancel();
+        }
+        displayTitle = title;
+        displayFilter = filter;
+        displayLookup = lookup;
+        displayPlaceholder = placeholder;
+        // The new rows are collected after every change applied so far
+        changedRows.clear();
+
+        List<Object> sortKey = getTableSortKey();
+        Comparator<Vehicle> order = getTableOrder();
+        Task<List<Vehicle>> task = new Task<>() {
+            @Override
+            protected List<Vehicle> call() {
+                updateMessage(filter == null ? "Loading inventory..." : "Searching...");
+                List<Vehicle> vehicles = manager.getVehiclesForDisplay();
+                List<Vehicle> rows;
+                if (filter == null) {
+                    rows = new ArrayList<>(vehicles);
+                } else if (lookup != null) {
+                    rows = lookup.get();
+                } else {
+                    int total = vehicles.size();
+                    int scanned = 0;
+                    rows = new ArrayList<>();
+                    long interval = TimeUnit.MILLISECONDS.toNanos(FIRST_RESULTS_MILLIS);
+                    long nextResults = System.nanoTime() + interval;
+                    for (Vehicle vehicle : vehicles) {
+                        if ((scanned & 1023) == 0) {
+                            if (isCancelled()) throw new CancellationException();
+                            updateProgress(scanned, total);
+
+                            if (!rows.isEmpty() && System.nanoTime() >= nextResults) {
+                                List<Vehicle> partial = new ArrayList<>(rows);
+                                sortVehicles(partial, order);
+                                Platform.runLater(() -> showPartialRows(this, partial, sortKey, order));
+                                interval *= 2;
+                                nextResults = System.nanoTime() + interval;
+                            }
+                        }
+                        scanned++;
 
-                String dealerInfo = vehicle.getDealerId();
-                if (vehicle.getMetadata().containsKey("dealer_name")) {
-                    dealerInfo += " (" + vehicle.getMetadata().get("dealer_name") + ")";
+                        if (filter.test(vehicle)) {
+                            rows.add(vehicle);
+                        }
+                    }
                 }
 
-                sb.append(String.format("Type: %s, ID: %s, Manufacturer: %s, Model: %s, Price: $%.2f, Dealer: %s, Status: %s\n",
-                        vehicle.getClass().getSimpleName(),
-                        vehicle.getVehicleId(),
-                        vehicle.getManufacturer(),
-                        vehicle.getModel(),
-                        vehicle.getPrice(),
-                        dealerInfo,
-                        rentalStatus));
-            });
+                if (isCancelled()) throw new CancellationException();
+                updateMessage("Sorting " + rows.size() + " vehicles...");
+                sortVehicles(rows, order);
+                return rows;
+            }
+        };
+        displayTask = task;
+        runSearch(task, rows -> {
+            inventoryTable.setPlaceholder(new Label(placeholder));
+            showRows(rows, sortKey, order);
+            showRowCount();
+            // The sort columns may have changed while the rows were collected
+            sortRows();
+        }, "Error updating display: ");
+    }
+
+    /**
+     * Shows the matches a search has found so far, unless the search has finished or been replaced
+     * @param search The search that found the rows
+     * @param rows The matches so far, in the given order
+     * @param sortKey The sort columns and directions the order was made from
+     * @param order The order of the rows
+     */
+    private void showPartialRows(Task<?> search, List<Vehicle> rows, List<Object> sortKey, Comparator<Vehicle> order) {
+        if (search != displayTask || search.isDone()) return;
+
+        showRows(rows, sortKey, order);
+        inventoryTitleLabel.setText(displayTitle + ": " + rows.size() + " vehicles so far...");
+    }
+
+    /**
+     * Collects the rows of the last refresh or search again
+     */
+    private void reloadDisplay() {
+        updateDisplay(displayTitle, displayFilter, displayLookup, displayPlaceholder);
+    }
+
+    /**
+     * Puts the rows into the table in the order of its sort columns. Sorting a large inventory
+     * takes longer than a frame, so it sorts a copy of the row references in the background and
+     * swaps it in when it is done.
+     */
+    private void sortRows() {
+        // The rows being collected are sorted by the columns of the table when they are shown
+        if (displayTask != null && !displayTask.isDone()) return;
+
+        // Setting the items makes the table sort again, the rows are already in this order
+        List<Object> sortKey = getTableSortKey();
+        if (sortKey.equals(sortedBy)) return;
+        if (sortTask != null) {
+            sortTask.cancel();
         }
+        sortedBy = sortKey;
+
+        Comparator<Vehicle> order = getTableOrder();
+        List<Vehicle> rows = new ArrayList<>(inventoryTable.getItems());
+        Task<List<Vehicle>> task = new Task<>() {
+            @Override
+            protected List<Vehicle> call() {
+                updateMessage("Sorting " + rows.size() + " vehicles...");
+                sortVehicles(rows, order);
+                return rows;
+            }
+        };
+        // A sort cancelled from the status bar has to run again next time
+        task.setOnCancelled(e -> sortedBy = null);
+        sortTask = task;
+        runSearch(task, sorted -> showRows(sorted, sortKey, order), "Error sorting inventory: ");
+    }
 
-        displayArea.setText(sb.toString());
+    /**
+     * Sorts rows in place, runs on the background executor
+     */
+    private static void sortVehicles(List<Vehicle> rows, Comparator<Vehicle> order) {
+        try {
+            rows.sort(order);
+        } catch (IllegalArgumentException e) {
+            // A vehicle was rented, returned or transferred during the sort, sort the partly sorted rows again
+            rows.sort(order);
+        }
     }
 
     /**
-     * Loads initial inventory data from file if it exists
+     * Gets the sort columns of the table with their directions, to tell whether the rows need sorting again
      */
-    private void loadInitialInventory() {
-        File initialFile = new File(INVENTORY_PATH);
-        if (initialFile.exists()) {
-            manager.readInventoryFile(initialFile);
-            refreshDisplay();
-            updateDealerDropdown();
+    private List<Object> getTableSortKey() {
+        List<Object> sortKey = new ArrayList<>();
+        for (TableColumn<Vehicle, ?> column : inventoryTable.getSortOrder()) {
+            sortKey.add(column);
+            sortKey.add(column.getSortType());
         }
+        return sortKey;
     }
 
     /**
-     * Updates the dealer dropdown with current dealerships in the system
+     * Gets the order of the sort columns of the table. Ties, and a table without sort columns,
+     * are ordered by vehicle ID, so every vehicle has one place that a binary search finds.
      */
-    private void updateDealerDropdown() {
-        // Get all unique dealer IDs from current inventory
-        java.util.Set<String> dealerIds = new java.util.HashSet<>();
+    private Comparator<Vehicle> getTableOrder() {
+        Comparator<Vehicle> order = null;
+        for (TableColumn<Vehicle, ?> column : inventoryTable.getSortOrder()) {
+            Comparator<Vehicle> columnComparator = columnComparators.get(column);
+            if (column.getSortType() == TableColumn.SortType.DESCENDING) {
+                columnComparator = columnComparator.reversed();
+            }
+            order = order == null ? columnComparator : order.thenComparing(columnComparator);
+        }
+        return order == null ? BY_VEHICLE_ID : order.thenComparing(BY_VEHICLE_ID);
+    }
 
-        for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
-            dealerIds.add(vehicle.getDealerId());
+    /**
+     * Puts new items into the table and applies the changes made while they were collected or sorted
+     * @param rows The rows, in the given order
+     * @param sortKey The sort columns and directions the order was made from
+     * @param order The order of the rows
+     */
+    private void showRows(List<Vehicle> rows, List<Object> sortKey, Comparator<Vehicle> order) {
+        sortedBy = sortKey;
+        rowOrder = order;
+        rowOrderChanges = sortKey.stream().anyMatch(changingColumns::contains);
+        inventoryTable.setItems(FXCollections.observableList(rows));
+
+        boolean redraw = false;
+        for (Vehicle vehicle : changedRows) {
+            redraw |= updateRow(vehicle, true);
+        }
+        if (redraw) {
+            inventoryTable.refresh();
         }
+        if (!isReplacingRows()) {
+            changedRows.clear();
+        }
+    }
 
-        // Update the combo box
-        dealerIdComboBox.getItems().clear();
-        dealerIdComboBox.getItems().add("-- New Dealer --");
-        dealerIdComboBox.getItems().addAll(dealerIds);
+    /**
+     * Checks whether a refresh, search or sort is preparing new items for the table
+     */
+    private boolean isReplacingRows() {
+        return (displayTask != null && !displayTask.isDone()) || (sortTask != null && !sortTask.isDone());
     }
 
     /**
-     * Updates the display area with current inventory information
+     * Shows the title of the rows with their number above the table
      */
-    private void refreshDisplay() {
-        StringBuilder sb = new StringBuilder("Current Inventory:\n\n");
+    private void showRowCount() {
+        inventoryTitleLabel.setText(displayTitle + ": " + inventoryTable.getItems().size() + " vehicles");
+    }
+
+    /**
+     * Queues an inventory event for the FX thread, called on the thread that changed the inventory.
+     * Events that arrive before the queue is applied are applied together.
+     */
+    private void queueInventoryEvent(InventoryEvent event) {
+        pendingEvents.add(event);
+        if (eventsScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::applyInventoryEvents);
+        }
+    }
 
-        manager.getVehiclesForDisplay().forEach(vehicle -> {
-            String rentalStatus = vehicle.isRented() ? "RENTED" : "AVAILABLE";
-            if (vehicle instanceof SportsCar) {
-                rentalStatus = "NOT RENTABLE";
+    /**
+     * Applies the queued inventory events to the dashboard statistics, the dealer dropdown and the
+     * table. Every changed vehicle and dealer is updated once, however many events it had.
+     * A reload, or more changed vehicles than are worth updating one at a time, collects the
+     * rows again instead.
+     */
+    private void applyInventoryEvents() {
+        eventsScheduled.set(false);
+
+        boolean reloaded = false;
+        Set<Vehicle> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Vehicle> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<String> dealerIds = new HashSet<>();
+        InventoryEvent event;
+        while ((event = pendingEvents.poll()) != null) {
+            fleetStats.apply(event);
+            switch (event.getType()) {
+                case RELOADED -> reloaded = true;
+                case ADDED, REMOVED -> {
+                    changed.add(event.getVehicle());
+                    dealerIds.add(event.getDealerId());
+                }
+                case RENTED, RETURNED, TRANSFERRED -> {
+                    changed.add(event.getVehicle());
+                    moved.add(event.getVehicle());
+                    dealerIds.add(event.getDealerId());
+                    if (event.getSourceDealerId() != null) {
+                        dealerIds.add(event.getSourceDealerId());
+                    }
+                }
+                default -> { }
             }
+        }
 
-            String dealerInfo = vehicle.getDealerId();
-            if (vehicle.getMetadata().containsKey("dealer_name")) {
-                dealerInfo += " (" + vehicle.getMetadata().get("dealer_name") + ")";
+        if (reloaded) {
+            // The statistics of a load are counted with it, see loadInitialInventory
+            updateDealerDropdown();
+            reloadDisplay();
+            return;
+        }
+
+        for (String dealerId : dealerIds) {
+            updateDealer(dealerId);
+        }
+        if (changed.isEmpty()) return;
+
+        // Items that are being prepared can be older than these changes
+        if (isReplacingRows()) {
+            changedRows.addAll(changed);
+        }
+        if (changed.size() > MAX_ROW_UPDATES || changedRows.size() > MAX_ROW_UPDATES) {
+            reloadDisplay();
+            return;
+        }
+
+        boolean redraw = false;
+        for (Vehicle vehicle : changed) {
+            redraw |= updateRow(vehicle, moved.contains(vehicle));
+        }
+        // Only the visible rows are drawn again
+        if (redraw) {
+            inventoryTable.refresh();
+        }
+        showRowCount();
+    }
+
+    /**
+     * Brings the row of one vehicle up to date: adds it if it was added or now matches the search,
+     * removes it if it was removed or no longer matches, and moves it if its place in the order
+     * changed. Calling it again for the same vehicle changes nothing.
+     * @param vehicle The vehicle that changed
+     * @param mayHaveMoved true if a column value changed in place since the row was put in order
+     * @return true if the row stayed where it is and only has to be drawn again
+     */
+    private boolean updateRow(Vehicle vehicle, boolean mayHaveMoved) {
+        List<Vehicle> rows = inventoryTable.getItems();
+        boolean show = manager.findVehicle(vehicle.getVehicleId()) == vehicle &&
+                (displayFilter == null || displayFilter.test(vehicle));
+
+        int index = indexOfRow(rows, vehicle, mayHaveMoved && rowOrderChanges);
+        if (index >= 0 && show && isInOrder(rows, index)) {
+            return true;
+        }
+        if (index >= 0) {
+            rows.remove(index);
+        }
+        if (show) {
+            int insertion = Collections.binarySearch(rows, vehicle, rowOrder);
+            rows.add(insertion < 0 ? -insertion - 1 : insertion, vehicle);
+        }
+        return false;
+    }
+
+    /**
+     * Finds the row of a vehicle with a binary search
+     * @param rows The table items, in rowOrder
+     * @param vehicle The vehicle
+     * @param scan true to look through all rows if the binary search misses, for a vehicle whose
+     *             place in the order may have changed since its row was put in place
+     * @return The index of the row, or -1 if the vehicle isn't shown
+     */
+    private int indexOfRow(List<Vehicle> rows, Vehicle vehicle, boolean scan) {
+        int index = Collections.binarySearch(rows, vehicle, rowOrder);
+        if (index >= 0 && rows.get(index) == vehicle) {
+            return index;
+        }
+        if (scan) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i) == vehicle) return i;
             }
+        }
+        return -1;
+    }
 
-            sb.append(String.format("Type: %s, ID: %s, Manufacturer: %s, Model: %s, Price: $%.2f, Dealer: %s, Status: %s\n",
-                    vehicle.getClass().getSimpleName(),
-                    vehicle.getVehicleId(),
-                    vehicle.getManufacturer(),
-                    vehicle.getModel(),
-                    vehicle.getPrice(),
-                    dealerInfo,
-                    rentalStatus));
-        });
+    /**
+     * Checks whether a row is still in its place in the order
+     */
+    private boolean isInOrder(List<Vehicle> rows, int index) {
+        Vehicle vehicle = rows.get(index);
+        return (index == 0 || rowOrder.compare(rows.get(index - 1), vehicle) <= 0) &&
+                (index == rows.size() - 1 || rowOrder.compare(vehicle, rows.get(index + 1)) <= 0);
+    }
 
-        displayArea.setText(sb.toString());
+    /**
+     * Adds a dealer to the dealer dropdown once it has vehicles, and removes it once it has none
+     * @param dealerId The dealer ID
+     */
+    private void updateDealer(String dealerId) {
+        // The dealer IDs follow the "-- New Dealer --" item in alphabetical order
+        List<String> items = dealerIdComboBox.getItems();
+        int index = Collections.binarySearch(items.subList(1, items.size()), dealerId);
+        boolean hasVehicles = manager.getVehicleCount(dealerId) > 0;
+        if (index < 0 && hasVehicles) {
+            items.add(-index - 1 + 1, dealerId);
+        } else if (index >= 0 && !hasVehicles) {
+            items.remove(index + 1);
+        }
     }
 
     /**
@@ -784,10 +1404,10 @@ public class DealershipJavaFXGUI extends Application {
     }
 
     /**
-     * Adds a message to the display area
+     * Shows a message above the inventory table
      */
     private void showMessage(String message) {
-        displayArea.appendText("\n>>> " + message + "\n");
+        inventoryTitleLabel.setText(">>> " + message);
     }
 
     /**
@@ -836,9 +1456,8 @@ public class DealershipJavaFXGUI extends Application {
     private List<String> getAvailableVehiclesForDealer(String dealerId) {
         List<String> availableVehicles = new ArrayList<>();
 
-        for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
-            if (vehicle.getDealerId().equals(dealerId) &&
-                    !(vehicle instanceof SportsCar) &&
+        for (Vehicle vehicle : manager.getVehiclesForDealer(dealerId)) {
+            if (!(vehicle instanceof SportsCar) &&
                     !vehicle.isRented()) {
                 availableVehicles.add(vehicle.getVehicleId() + " - " +
                         vehicle.getManufacturer() + " " +
@@ -855,8 +1474,8 @@ public class DealershipJavaFXGUI extends Application {
     private List<String> getRentedVehiclesForDealer(String dealerId) {
         List<String> rentedVehicles = new ArrayList<>();
 
-        for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
-            if (vehicle.getDealerId().equals(dealerId) && vehicle.isRented()) {
+        for (Vehicle vehicle : manager.getVehiclesForDealer(dealerId)) {
+            if (vehicle.isRented()) {
                 rentedVehicles.add(vehicle.getVehicleId() + " - " +
                         vehicle.getManufacturer() + " " +
                         vehicle.getModel());
@@ -896,15 +1515,14 @@ public class DealershipJavaFXGUI extends Application {
             vehicle.setAcquisitionDate(new Date());
             vehicle.setDealerId(dealerId);
 
-            File inventoryFile = new File(INVENTORY_PATH);
-            if (manager.addVehicleToInventory(vehicle, inventoryFile)) {
-                refreshDisplay();
-                updateDealerDropdown(); // Update dealer dropdown after adding
-                clearInputFields();
-                showSuccess("Vehicle added to inventory successfully!");
-            } else {
-                showError("Cannot add vehicle - Acquisition is disabled for dealer " + dealerId);
-            }
+            whenCommitted(pipeline.addVehicle(vehicle), added -> {
+                if (added) {
+                    clearInputFields();
+                    showSuccess("Vehicle added to inventory successfully!");
+                } else {
+                    showError("Cannot add vehicle - Acquisition is disabled for dealer " + dealerId);
+                }
+            }, "Error adding vehicle: ");
         } catch (Exception ex) {
             showError("Error adding vehicle: " + ex.getMessage());
         }
@@ -935,10 +1553,7 @@ public class DealershipJavaFXGUI extends Application {
             dealerCombo.setPromptText("Select a dealer");
 
             // Find all dealers that have vehicles
-            Set<String> dealersWithVehicles = new HashSet<>();
-            for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
-                dealersWithVehicles.add(vehicle.getDealerId());
-            }
+            Set<String> dealersWithVehicles = new LinkedHashSet<>(manager.getDealerIds());
 
             // If no vehicles, show a message and return
             if (dealersWithVehicles.isEmpty()) {
@@ -1031,24 +1646,22 @@ public class DealershipJavaFXGUI extends Application {
                     return;
                 }
 
-                File inventoryFile = new File(INVENTORY_PATH);
-                boolean success = manager.removeVehicleFromInventory(
+                CompletableFuture<Boolean> removal = pipeline.removeVehicle(
                         info.dealerId,
                         info.vehicleId,
                         info.manufacturer,
                         info.model,
-                        info.price,
-                        inventoryFile
+                        info.price
                 );
 
-                if (success) {
-                    refreshDisplay();
-                    clearInputFields();
-                    updateDealerDropdown();
-                    showSuccess("Vehicle removed successfully");
-                } else {
-                    showError("Failed to remove vehicle. Vehicle may be rented or not found.");
-                }
+                whenCommitted(removal, success -> {
+                    if (success) {
+                        clearInputFields();
+                        showSuccess("Vehicle removed successfully");
+                    } else {
+                        showError("Failed to remove vehicle. Vehicle may be rented or not found.");
+                    }
+                }, "Error removing vehicle: ");
             });
         } catch (Exception ex) {
             showError("Error removing vehicle: " + ex.getMessage());
@@ -1079,12 +1692,7 @@ public class DealershipJavaFXGUI extends Application {
             // Create dealer dropdown
             ComboBox<String> rentalDealerCombo = new ComboBox<>();
             rentalDealerCombo.setPromptText("Select a dealer");
-            java.util.Set<String> dealerIds = new java.util.HashSet<>();
-
-            for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
-                dealerIds.add(vehicle.getDealerId());
-            }
-            rentalDealerCombo.getItems().addAll(dealerIds);
+            rentalDealerCombo.getItems().addAll(manager.getDealerIds());
 
             // Create vehicle dropdown (initially empty)
             ComboBox<String> vehicleCombo = new ComboBox<>();
@@ -1138,16 +1746,16 @@ public class DealershipJavaFXGUI extends Application {
                     return;
                 }
 
-                File inventoryFile = new File(INVENTORY_PATH);
-                boolean success = manager.rentVehicle(
-                        info.dealerId, info.vehicleId, info.startDate, info.endDate, inventoryFile);
+                CompletableFuture<Boolean> rental = pipeline.rentVehicle(
+                        info.dealerId, info.vehicleId, info.startDate, info.endDate);
 
-                if (success) {
-                    refreshDisplay();
-                    showSuccess("Vehicle rented successfully");
-                } else {
-                    showError("Failed to rent vehicle. Vehicle may be already rented or not found.");
-                }
+                whenCommitted(rental, success -> {
+                    if (success) {
+                        showSuccess("Vehicle rented successfully");
+                    } else {
+                        showError("Failed to rent vehicle. Vehicle may be already rented, booked for those dates or not found.");
+                    }
+                }, "Error renting vehicle: ");
             });
         } catch (Exception ex) {
             showError("Error renting vehicle: " + ex.getMessage());
@@ -1155,9 +1763,33 @@ public class DealershipJavaFXGUI extends Application {
     }
 
     /**
-     * Handles returning a rented vehicle
+     * Handles returning a rented vehicle, the dealers with rented vehicles are found in the background
      */
     private void handleReturnVehicle() {
+        Task<Set<String>> task = new Task<>() {
+            @Override
+            protected Set<String> call() {
+                updateMessage("Finding rented vehicles...");
+                Set<String> dealersWithRentedVehicles = new LinkedHashSet<>();
+                for (String dealerId : manager.getDealerIds()) {
+                    if (isCancelled()) throw new CancellationException();
+                    for (Vehicle vehicle : manager.getVehiclesForDealer(dealerId)) {
+                        if (vehicle.isRented()) {
+                            dealersWithRentedVehicles.add(dealerId);
+                            break;
+                        }
+                    }
+                }
+                return dealersWithRentedVehicles;
+            }
+        };
+        runInBackground(task, true, this::showReturnDialog, "Error returning vehicle: ");
+    }
+
+    /**
+     * Shows the dialog for returning a rented vehicle
+     */
+    private void showReturnDialog(Set<String> dealersWithRentedVehicles) {
         try {
             // Create a custom dialog for returning vehicles
             Dialog<String> dialog = new Dialog<>();
@@ -1182,14 +1814,6 @@ public class DealershipJavaFXGUI extends Application {
             ComboBox<String> dealerCombo = new ComboBox<>();
             dealerCombo.setPromptText("Select a dealer");
 
-            // Find all dealers that have rented vehicles
-            Set<String> dealersWithRentedVehicles = new HashSet<>();
-            for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
-                if (vehicle.isRented()) {
-                    dealersWithRentedVehicles.add(vehicle.getDealerId());
-                }
-            }
-
             // If no rented vehicles, show a message and return
             if (dealersWithRentedVehicles.isEmpty()) {
                 showError("No vehicles are currently rented");
@@ -1235,15 +1859,13 @@ public class DealershipJavaFXGUI extends Application {
                 }
 
                 String dealerId = dealerCombo.getValue();
-                File inventoryFile = new File(INVENTORY_PATH);
-                boolean success = manager.returnVehicle(dealerId, vehicleId, inventoryFile);
-
-                if (success) {
-                    refreshDisplay();
-                    showSuccess("Vehicle returned successfully");
-                } else {
-                    showError("Failed to return vehicle. An unexpected error occurred.");
-                }
+                whenCommitted(pipeline.returnVehicle(dealerId, vehicleId), success -> {
+                    if (success) {
+                        showSuccess("Vehicle returned successfully");
+                    } else {
+                        showError("Failed to return vehicle. An unexpected error occurred.");
+                    }
+                }, "Error returning vehicle: ");
             });
         } catch (Exception ex) {
             showError("Error returning vehicle: " + ex.getMessage());
@@ -1275,10 +1897,7 @@ public class DealershipJavaFXGUI extends Application {
             sourceDealerCombo.setPromptText("Select Source Dealer");
 
             // Find all dealers that have vehicles
-            Set<String> dealersWithVehicles = new HashSet<>();
-            for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
-                dealersWithVehicles.add(vehicle.getDealerId());
-            }
+            Set<String> dealersWithVehicles = new LinkedHashSet<>(manager.getDealerIds());
 
             // If no vehicles, show a message and return
             if (dealersWithVehicles.isEmpty()) {
@@ -1393,21 +2012,19 @@ public class DealershipJavaFXGUI extends Application {
                     manager.enableAcquisition(info.targetDealerId);
                 }
 
-                File inventoryFile = new File(INVENTORY_PATH);
-                boolean success = manager.transferVehicle(
+                CompletableFuture<Boolean> transfer = pipeline.transferVehicle(
                         info.sourceDealerId,
                         info.targetDealerId,
-                        info.vehicleId,
-                        inventoryFile
+                        info.vehicleId
                 );
 
-                if (success) {
-                    refreshDisplay();
-                    updateDealerDropdown();
-                    showSuccess("Vehicle transferred successfully");
-                } else {
-                    showError("Failed to transfer vehicle. Check dealer IDs and vehicle status.");
-                }
+                whenCommitted(transfer, success -> {
+                    if (success) {
+                        showSuccess("Vehicle transferred successfully");
+                    } else {
+                        showError("Failed to transfer vehicle. Check dealer IDs and vehicle status.");
+                    }
+                }, "Error transferring vehicle: ");
             });
         } catch (Exception ex) {
             showError("Error transferring vehicle: " + ex.getMessage());
@@ -1425,14 +2042,30 @@ public class DealershipJavaFXGUI extends Application {
 
             if (selectedFile != null) {
                 File inventoryFile = new File(INVENTORY_PATH);
-                int importCount = manager.importXMLFile(selectedFile, inventoryFile);
-
-                if (importCount > 0) {
-                    refreshDisplay();
-                    showSuccess("Successfully imported " + importCount + " vehicles from XML");
-                } else {
-                    showMessage("No vehicles were imported from XML");
-                }
+                Task<IngestionReport> task = new Task<>() {
+                    @Override
+                    protected IngestionReport call() {
+                        updateMessage("Importing " + selectedFile.getName() + "...");
+                        IngestionReport result = manager.ingestXMLFile(selectedFile, inventoryFile, report -> {
+                            // Stops after the current batch, the batches before it stay imported
+                            if (isCancelled()) throw new CancellationException();
+                            updateMessage("Importing " + selectedFile.getName() + ": " + report.getAccepted() + " vehicles");
+                        });
+                        System.out.println("XML import: " + result);
+                        return result;
+                    }
+                };
+                runInBackground(task, true, report -> {
+                    int importCount = report.getAccepted();
+                    if (!report.isComplete()) {
+                        showError("XML import stopped early, only " + importCount
+                                + " vehicles were imported: " + report.getFailure());
+                    } else if (importCount > 0) {
+                        showSuccess("Successfully imported " + importCount + " vehicles from XML");
+                    } else {
+                        showMessage("No vehicles were imported from XML");
+                    }
+                }, "Error importing XML: ");
             }
         } catch (Exception ex) {
             showError("Error importing XML: " + ex.getMessage());
@@ -1481,27 +2114,36 @@ public class DealershipJavaFXGUI extends Application {
             return;
         }
 
-        try {
-            if (manager.exportInventoryToExport(inventoryFile, exportFile)) {
+        Task<Boolean> task = new Task<>() {
+            @Override
+            protected Boolean call() {
+                updateMessage("Exporting to " + exportFile.getName() + "...");
+                return manager.exportInventoryToExport(inventoryFile, exportFile);
+            }
+        };
+        runInBackground(task, false, exported -> {
+            if (exported) {
                 showSuccess("Successfully exported to export.json");
             } else {
                 showError("Failed to export: No vehicles found in inventory");
             }
-        } catch (Exception e) {
-            showError("Error during export: " + e.getMessage());
-        }
+        }, "Error during export: ");
     }
 
     /**
      * Handles clearing the export.json file
      */
     private void handleClearExport() {
-        try {
-            manager.clearExportFile(new File(EXPORT_PATH));
-            showSuccess("export.json has been cleared");
-        } catch (Exception e) {
-            showError("Error clearing export.json: " + e.getMessage());
-        }
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() {
+                updateMessage("Clearing export.json...");
+                manager.clearExportFile(new File(EXPORT_PATH));
+                return null;
+            }
+        };
+        runInBackground(task, false, cleared -> showSuccess("export.json has been cleared"),
+                "Error clearing export.json: ");
     }
 
     /**
@@ -1511,15 +2153,13 @@ public class DealershipJavaFXGUI extends Application {
      */
     private List<String> getVehiclesForDealer(String dealerId) {
         List<String> formattedVehicles = new ArrayList<>();
-        for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
-            if (vehicle.getDealerId().equals(dealerId)) {
-                String formatted = String.format("%s - %s %s ($%.2f)",
-                        vehicle.getVehicleId(),
-                        vehicle.getManufacturer(),
-                        vehicle.getModel(),
-                        vehicle.getPrice());
-                formattedVehicles.add(formatted);
-            }
+        for (Vehicle vehicle : manager.getVehiclesForDealer(dealerId)) {
+            String formatted = String.format("%s - %s %s ($%.2f)",
+                    vehicle.getVehicleId(),
+                    vehicle.getManufacturer(),
+                    vehicle.getModel(),
+                    vehicle.getPrice());
+            formattedVehicles.add(formatted);
         }
         return formattedVehicles;
     }
@@ -1528,11 +2168,57 @@ public class DealershipJavaFXGUI extends Application {
      * Finds a vehicle by dealer ID and vehicle ID
      */
     private Vehicle findVehicleById(String dealerId, String vehicleId) {
-        return manager.getVehiclesForDisplay().stream()
-                .filter(vehicle -> vehicle.getDealerId().equals(dealerId) &&
-                        vehicle.getVehicleId().equals(vehicleId))
-                .findFirst()
-                .orElse(null);
+        Vehicle vehicle = manager.findVehicle(vehicleId);
+        if (vehicle == null || !vehicle.getDealerId().equals(dealerId)) {
+            return null;
+        }
+        return vehicle;
+    }
+
+    /**
+     * Helper class to hold the dashboard statistics
+     */
+    private static class DashboardStats {
+        public int totalVehicles;
+        public long rentedVehicles;
+        public final Map<String, Integer> vehiclesByType = new HashMap<>();
+        public final Map<String, Integer> vehiclesByDealer = new HashMap<>();
+
+        /**
+         * Updates the counts for one inventory event
+         */
+        public void apply(InventoryEvent event) {
+            switch (event.getType()) {
+                case ADDED -> {
+                    totalVehicles++;
+                    if (event.isRented()) {
+                        rentedVehicles++;
+                    }
+                    count(vehiclesByType, event.getVehicle().getClass().getSimpleName(), 1);
+                    count(vehiclesByDealer, event.getDealerId(), 1);
+                }
+                case REMOVED -> {
+                    // Rented vehicles can't be removed
+                    totalVehicles--;
+                    count(vehiclesByType, event.getVehicle().getClass().getSimpleName(), -1);
+                    count(vehiclesByDealer, event.getDealerId(), -1);
+                }
+                case RENTED -> rentedVehicles++;
+                case RETURNED -> rentedVehicles--;
+                case TRANSFERRED -> {
+                    count(vehiclesByDealer, event.getSourceDealerId(), -1);
+                    count(vehiclesByDealer, event.getDealerId(), 1);
+                }
+                default -> { }
+            }
+        }
+
+        /**
+         * Adds to a count, counts that reach zero are removed
+         */
+        private static void count(Map<String, Integer> counts, String key, int delta) {
+            counts.merge(key, delta, (count, change) -> count + change == 0 ? null : count + change);
+        }
     }
 
     /**
@@ -1,37 +1,236 @@
 package org.example;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import java.io.File;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * The DealershipManager class manages all the dealerships and the inventories.
  * This class provides the methods add, remove, export vehicle, enable acquisition, and lastly disable acquisition.
+ * <p>
+ * The manager is thread-safe. Changes to different dealerships run in parallel, each one holding
+ * only the locks of the dealerships it touches, and is journaled before those locks are released
+ * so the journal order matches the order the changes were made in. Compaction holds the state
+ * lock exclusively only to rotate the journal and take each dealership's vehicle list, so every
+ * vehicle is in the snapshot exactly once; changes made while the vehicles are copied are
+ * replayed from the journal over the snapshot.
+ * <p>
+ * Every change is published to the InventoryListeners as an InventoryEvent once it is journaled.
+ * Reading an inventory file publishes a single RELOADED event instead of one event per vehicle.
  */
 public class DealershipManager {
-    private Map<String, Dealership> dealerships = new HashMap<>();          // stores the dealership by their id
+    private static final int INGEST_BATCH_SIZE = 10_000;                    // Vehicles grouped per bulk ingestion batch
+
+    private final Map<String, Dealership> dealerships = new ConcurrentHashMap<>(); // stores the dealership by their id
+    private final Map<String, Vehicle> vehicleIndex = new ConcurrentHashMap<>();   // every vehicle in the fleet by vehicle id
+    private final VehicleRangeIndex priceIndex = new VehicleRangeIndex(Vehicle::getPrice); // every vehicle by price
+    private final VehicleRangeIndex acquisitionIndex = new VehicleRangeIndex(           // every vehicle by acquisition date
+            vehicle -> vehicle.getAcquisitionDate() == null ? Double.NaN : vehicle.getAcquisitionDate().getTime());
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock(); // Shared by changes, exclusive for snapshots
     private final JSONFileHandler jsonFileHandler = new JSONFileHandler();  // Handles all the JSON files
     private final XMLFileHandler xmlFileHandler = new XMLFileHandler();     // Handles XML import
+    private InventoryJournal journal;                                       // Append-only log of mutations since the last snapshot
+    private final Object compactionLock = new Object();                     // Lets only one snapshot be written at a time
+    private InventoryCompactor compactor;                                   // Background journal compaction, if started
+    private RecoveryReport lastRecoveryReport;                              // How long the last readInventoryFile took
+    private volatile FleetView fleetView = new FleetView(List.of());        // Last result of getVehiclesForDisplay
+    private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>(); // Told about every change
 
     /**
-     * Reads the inventory and loads the vehicles into their respective dealership
+     * Reads the inventory and loads the vehicles into their respective dealership.
+     * Any mutations journaled since the snapshot was written are replayed on top of it.
      * @param file The inventory file that you want to read form
      */
     public void readInventoryFile(File file) {
-        List<Vehicle> vehicles = jsonFileHandler.readInventory(file);
-        for (Vehicle vehicle : vehicles) {
-            String dealerId = vehicle.getDealerId();
-            String dealerName = null;
+        long start = System.currentTimeMillis();
+        IngestionReport snapshotReport = new IngestionReport();
+        int replayed;
+
+        stateLock.writeLock().lock();
+        try {
+            List<Vehicle> batch = new ArrayList<>(INGEST_BATCH_SIZE);
+            jsonFileHandler.readInventory(file, vehicle -> {
+                batch.add(vehicle);
+                if (batch.size() == INGEST_BATCH_SIZE) {
+                    ingest(batch, snapshotReport, null, null);
+                    batch.clear();
+                }
+            });
+            ingest(batch, snapshotReport, null, null);
+
+            long snapshotSequence = jsonFileHandler.readJournalSequence(file);
+            replayed = journalFor(file).replay(snapshotSequence, this::applyJournalRecord);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+
+        lastRecoveryReport = new RecoveryReport(snapshotReport.getAccepted(), replayed, System.currentTimeMillis() - start);
+        System.out.println(lastRecoveryReport);
+        publish(new InventoryEvent(InventoryEvent.Type.RELOADED, null, null, null, false));
+    }
+
+    /**
+     * Adds a listener that is told about every change to the inventory from now on
+     * @param listener The listener, see InventoryListener for the threads it is called on
+     */
+    public void addInventoryListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with addInventoryListener
+     * @param listener The listener
+     */
+    public void removeInventoryListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Checks whether changes made by the current thread are published, so callers can skip
+     * building events nobody receives
+     * @return true if there are listeners and the thread isn't loading an inventory file
+     */
+    private boolean isPublishing() {
+        // Loads hold the state lock exclusively and are announced once, with a RELOADED event
+        return !listeners.isEmpty() && !stateLock.isWriteLockedByCurrentThread();
+    }
+
+    /**
+     * Tells every listener about a change. A listener that throws doesn't stop the others.
+     * @param event The change
+     */
+    private void publish(InventoryEvent event) {
+        if (!isPublishing()) return;
+        for (InventoryListener listener : listeners) {
+            try {
+                listener.inventoryChanged(event);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Gets the report of the last readInventoryFile call
+     * @return The recovery report, or null if no inventory was read yet
+     */
+    public RecoveryReport getLastRecoveryReport() {
+        return lastRecoveryReport;
+    }
+
+    /**
+     * Applies one journal record to the in-memory state without journaling it again
+     * @param record The journal record to apply
+     */
+    private void applyJournalRecord(JsonNode record) {
+        String op = record.path("op").asText();
+        String dealerId = record.path("dealership_id").asText();
+        String vehicleId = record.path("vehicle_id").asText();
 
-            // Check if dealer name is in metadata
-            if (vehicle.getMetadata().containsKey("dealer_name")) {
-                dealerName = (String) vehicle.getMetadata().get("dealer_name");
+        switch (op) {
+            case InventoryJournal.OP_ADD: {
+                Vehicle vehicle = jsonFileHandler.readVehicle(record);
+                if (vehicle != null) {
+                    ingest(Collections.singletonList(vehicle), new IngestionReport(), null, null);
+                }
+                break;
             }
+            case InventoryJournal.OP_REMOVE: {
+                // Not checked against the rental state, see replayTransfer
+                Dealership dealership = dealerships.get(dealerId);
+                Vehicle vehicle = dealership == null ? null : dealership.removeVehicle(vehicleId);
+                if (vehicle != null) {
+                    unindex(vehicle);
+                }
+                break;
+            }
+            case InventoryJournal.OP_RENT:
+            case InventoryJournal.OP_RETURN:
+            case InventoryJournal.OP_RESERVE:
+            case InventoryJournal.OP_CANCEL:
+                applyRentalRecord(record, op, vehicleId);
+                break;
+            case InventoryJournal.OP_TRANSFER:
+                replayTransfer(record.path("source_dealership_id").asText(), dealerId, vehicleId);
+                break;
+            default:
+                System.err.println("Skipping unknown journal record: " + op);
+        }
+    }
 
-            processAddVehicleCommand(dealerId, vehicle, dealerName);
+    /**
+     * Applies a journaled transfer without checking the rental state again. The transfer was
+     * checked when it was made, but rentals and returns are journaled outside the dealership
+     * locks: a return made before the transfer can be journaled after it, so replay can see
+     * the vehicle still rented when it gets to the transfer.
+     * @param sourceDealerId The ID of the source dealership
+     * @param targetDealerId The ID of the target dealership
+     * @param vehicleId The ID of the vehicle to transfer
+     */
+    private void replayTransfer(String sourceDealerId, String targetDealerId, String vehicleId) {
+        Dealership sourceDealership = dealerships.get(sourceDealerId);
+        if (sourceDealership != null) {
+            sourceDealership.moveVehicle(vehicleId, getOrCreateDealership(targetDealerId, null));
         }
     }
 
+    /**
+     * Applies a journaled rental, return or booking change. Rentals are not ordered by dealership
+     * locks, so a return can be journaled before the rental it ends; the rental version puts them
+     * back in order. Records written before versions were journaled are applied in journal order,
+     * and records written before bookings were journaled keep the bookings the vehicle has.
+     * @param record The journal record
+     * @param op The record operation, rent, return, reserve or cancel
+     * @param vehicleId The vehicle the record is about
+     */
+    private void applyRentalRecord(JsonNode record, String op, String vehicleId) {
+        Vehicle vehicle = vehicleIndex.get(vehicleId);
+        if (vehicle == null) return;
+
+        boolean isRent = InventoryJournal.OP_RENT.equals(op);
+        Date startDate = isRent ? new Date(record.path("rental_start_date").asLong()) : null;
+        Date endDate = isRent ? new Date(record.path("rental_end_date").asLong()) : null;
+
+        if (!record.has("rental_version")) {
+            if (isRent) {
+                vehicle.rent(startDate, endDate);
+            } else {
+                vehicle.returnVehicle();
+            }
+            return;
+        }
+
+        RentalState current = vehicle.getRentalState();
+        long version = record.path("rental_version").asLong();
+        ReservationBook reservations = record.has("reservations")
+                ? jsonFileHandler.readReservations(record.path("reservations")) : current.getReservations();
+        RentalState journaled;
+        if (isRent) {
+            journaled = new RentalState(RentalState.Status.RENTED, startDate, endDate, version, reservations);
+        } else if (InventoryJournal.OP_RETURN.equals(op)) {
+            journaled = new RentalState(RentalState.Status.AVAILABLE, current.getStartDate(), current.getEndDate(),
+                    version, reservations);
+        } else {
+            // Booking records hold the whole rental state
+            journaled = new RentalState(
+                    record.path("is_rented").asBoolean() ? RentalState.Status.RENTED : RentalState.Status.AVAILABLE,
+                    record.has("rental_start_date") ? new Date(record.path("rental_start_date").asLong()) : null,
+                    record.has("rental_end_date") ? new Date(record.path("rental_end_date").asLong()) : null,
+                    version, reservations);
+        }
+        vehicle.applyRentalState(journaled);
+    }
+
     /**
      * A command to add a vehicle to a dealership
      * @param dealerId  Unique id for dealership
@@ -50,30 +249,66 @@ public class DealershipManager {
      * @return true if the vehicle was added, false otherwise
      */
     public boolean processAddVehicleCommand(String dealerId, Vehicle vehicle, String dealerName) {
-        Dealership dealership = dealerships.get(dealerId);
+        return addVehicle(dealerId, vehicle, dealerName, null);
+    }
 
-        if (dealership == null) {
-            dealership = new Dealership(dealerId, dealerName);
-            dealership.enableAcquisition();
-            dealerships.put(dealerId, dealership);
-        } else if (dealerName != null && !dealerName.isEmpty()) {
-            dealership.setName(dealerName);
-        }
+    /**
+     * Adds a vehicle to a dealership and journals it while the dealership is still locked
+     * @param dealerId Unique id for dealership
+     * @param vehicle The vehicle you want added
+     * @param dealerName Optional dealer name
+     * @param inventoryFile The file where the inventory is stored, or null to not journal the vehicle
+     * @return true if the vehicle was added, false otherwise
+     */
+    private boolean addVehicle(String dealerId, Vehicle vehicle, String dealerName, File inventoryFile) {
+        stateLock.readLock().lock();
+        try {
+            Dealership dealership = getOrCreateDealership(dealerId, dealerName);
+            if (dealerName != null && !dealerName.isEmpty()) {
+                dealership.setName(dealerName);
+            }
 
-        if (!dealership.isAcquisitionEnabled()) {
-            System.out.println("Cannot add vehicle: Acquisition disabled for dealer " + dealerId);
-            return false;
-        }
+            dealership.getLock().lock();
+            try {
+                if (!dealership.isAcquisitionEnabled()) {
+                    System.out.println("Cannot add vehicle: Acquisition disabled for dealer " + dealerId);
+                    return false;
+                }
 
-        if (dealership.addVehicle(vehicle)) {
-            System.out.println("Vehicle added successfully to dealer " + dealerId);
-            return true;
-        } else {
-            System.out.println("Failed to add vehicle: Duplicate vehicle ID");
-            return false;
+                // Vehicle IDs are unique across the whole fleet
+                if (vehicleIndex.putIfAbsent(vehicle.getVehicleId(), vehicle) == null) {
+                    indexByRange(vehicle);
+                    dealership.addVehicle(vehicle);
+                    journal(inventoryFile, j -> j.appendAdd(vehicle));
+                    publish(new InventoryEvent(InventoryEvent.Type.ADDED, vehicle, dealerId, null, vehicle.isRented()));
+                    System.out.println("Vehicle added successfully to dealer " + dealerId);
+                    return true;
+                } else {
+                    System.out.println("Failed to add vehicle: Duplicate vehicle ID");
+                    return false;
+                }
+            } finally {
+                dealership.getLock().unlock();
+            }
+        } finally {
+            stateLock.readLock().unlock();
         }
     }
 
+    /**
+     * Gets a dealership, creating it with acquisition enabled if it doesn't exist yet
+     * @param dealerId Unique id for dealership
+     * @param dealerName Name for a new dealership, may be null
+     * @return The dealership
+     */
+    private Dealership getOrCreateDealership(String dealerId, String dealerName) {
+        return dealerships.computeIfAbsent(dealerId, id -> {
+            Dealership dealership = new Dealership(id, dealerName);
+            dealership.enableAcquisition();
+            return dealership;
+        });
+    }
+
     /**
      * Adds a vehicle to the inventory as well as updating the dealership
      * @param vehicle The vehicle you want added
@@ -87,20 +322,179 @@ public class DealershipManager {
             return false;
         }
 
-        boolean result = processAddVehicleCommand(vehicle.getDealerId(), vehicle);
-        if (result) {
-            saveState(inventoryFile);
-        }
-        return result;
+        return addVehicle(vehicle.getDealerId(), vehicle, null, inventoryFile);
     }
 
     /**
-     * Auto-saves the current state to the inventory file
+     * Writes a full snapshot of the current state to the inventory file and empties its journal
      * @param inventoryFile The file to save to
      */
     public void saveState(File inventoryFile) {
-        List<Vehicle> allVehicles = getVehiclesForDisplay();
-        jsonFileHandler.writeInventory(allVehicles, inventoryFile);
+        try {
+            compact(inventoryFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot. Writers are only held up while the journal is
+     * rotated and the dealerships' vehicle lists are taken; the vehicles are copied under one
+     * dealership lock at a time and the snapshot is written without holding any lock.
+     * <p>
+     * A vehicle changed after the rotation may be copied with that change. The change is also in
+     * the new journal with a later sequence number, and replaying it over the snapshot gives the
+     * same result: adds of vehicles that exist and removes or transfers of vehicles that are not
+     * there are skipped, and rental records carry their version.
+     * @param inventoryFile The snapshot file the journal belongs to
+     */
+    public void compact(File inventoryFile) throws IOException {
+        synchronized (compactionLock) {
+            InventoryJournal compactedJournal;
+            Map<Dealership, List<Vehicle>> vehiclesByDealership = new LinkedHashMap<>();
+            long sequence;
+
+            stateLock.writeLock().lock();
+            try {
+                compactedJournal = journalFor(inventoryFile);
+                sequence = compactedJournal.getLastSequence();
+                compactedJournal.rotate();
+                // The read-only lists are only rebuilt for dealerships changed since they were last read
+                for (Dealership dealership : dealerships.values()) {
+                    vehiclesByDealership.put(dealership, dealership.getVehicles());
+                }
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+
+            List<Vehicle> snapshot = new ArrayList<>();
+            for (Map.Entry<Dealership, List<Vehicle>> entry : vehiclesByDealership.entrySet()) {
+                ReentrantLock lock = entry.getKey().getLock();
+                lock.lock();
+                try {
+                    for (Vehicle vehicle : entry.getValue()) {
+                        snapshot.add(vehicle.copy());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            // The rotated journal is only deleted once the snapshot that replaces it is on disk
+            jsonFileHandler.writeSnapshot(snapshot, inventoryFile, sequence);
+            compactedJournal.completeRotation();
+        }
+    }
+
+    /**
+     * Checks if the journal of an inventory file has reached a compaction threshold
+     * @param inventoryFile The snapshot file the journal belongs to
+     * @param policy The compaction thresholds
+     * @return true if the journal should be compacted, otherwise false
+     */
+    public synchronized boolean needsCompaction(File inventoryFile, CompactionPolicy policy) {
+        InventoryJournal current = journalFor(inventoryFile);
+        return policy.isExceeded(current.getRecordCount(), current.getByteCount(), current.getAgeMillis());
+    }
+
+    /**
+     * Starts compacting the journal of an inventory file in the background.
+     * If the last recovery took longer than the policy's target, a compaction is started right away.
+     * @param inventoryFile The snapshot file the journal belongs to
+     * @param policy The compaction thresholds
+     */
+    public void startCompaction(File inventoryFile, CompactionPolicy policy) {
+        stopCompaction();
+        compactor = new InventoryCompactor(this, inventoryFile, policy);
+        compactor.start();
+
+        if (lastRecoveryReport != null && lastRecoveryReport.getElapsedMillis() > policy.getRecoveryTargetMillis()) {
+            System.out.println("Recovery took " + lastRecoveryReport.getElapsedMillis() + " ms, over the target of "
+                    + policy.getRecoveryTargetMillis() + " ms. Compacting now.");
+            compactor.requestCompaction();
+        }
+    }
+
+    /**
+     * Stops background compaction
+     */
+    public void stopCompaction() {
+        if (compactor != null) {
+            compactor.close();
+            compactor = null;
+        }
+    }
+
+    /**
+     * Closes the journal of the current inventory file
+     */
+    public synchronized void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        journal = null;
+    }
+
+    /**
+     * Gets the journal for an inventory file, reopening it when a different file is used
+     * @param inventoryFile The inventory snapshot file
+     * @return The journal stored next to the inventory file
+     */
+    private synchronized InventoryJournal journalFor(File inventoryFile) {
+        File journalFile = InventoryJournal.journalFileFor(inventoryFile);
+        if (journal == null || !journal.getJournalFile().equals(journalFile)) {
+            closeJournal();
+            journal = new InventoryJournal(journalFile);
+        }
+        return journal;
+    }
+
+    /**
+     * Persists one change by appending it to the journal of the inventory file.
+     * Falls back to a full snapshot if the journal cannot be written. The snapshot is written
+     * on another thread because the caller holds the state lock that compaction needs. A journal
+     * batch the change belongs to fails when it is committed, since the change is not durable yet.
+     * @param inventoryFile The inventory snapshot file, or null if the change is not persisted
+     * @param entry Writes the change to the journal
+     */
+    private void journal(File inventoryFile, JournalEntry entry) {
+        if (inventoryFile == null) return;
+        InventoryJournal current = journalFor(inventoryFile);
+        try {
+            entry.writeTo(current);
+        } catch (IOException e) {
+            System.err.println("Could not append to journal, writing full snapshot: " + e.getMessage());
+            current.failBatch(e);
+            CompletableFuture.runAsync(() -> saveState(inventoryFile));
+        }
+    }
+
+    /**
+     * Starts a journal batch for an inventory file. Changes journaled until commitJournalBatch
+     * are written without a flush per change and made durable together.
+     * @param inventoryFile The inventory snapshot file
+     */
+    void beginJournalBatch(File inventoryFile) {
+        journalFor(inventoryFile).beginBatch();
+    }
+
+    /**
+     * Commits a journal batch, flushing its changes and forcing them to disk
+     * @param inventoryFile The inventory snapshot file
+     * @throws IOException if the changes could not be forced to disk, or one of them could not be journaled
+     */
+    void commitJournalBatch(File inventoryFile) throws IOException {
+        journalFor(inventoryFile).commitBatch();
+    }
+
+    /**
+     * A change that can be written to the journal
+     */
+    private interface JournalEntry {
+        void writeTo(InventoryJournal journal) throws IOException;
     }
 
     /**
@@ -121,52 +515,232 @@ public class DealershipManager {
             return false;
         }
 
-        // Find the vehicle in the dealership
-        Vehicle vehicleToRemove = null;
-        List<Vehicle> vehicles = dealership.getVehicles();
+        stateLock.readLock().lock();
+        dealership.getLock().lock();
+        try {
+            // Find the vehicle in the dealership
+            Vehicle vehicleToRemove = dealership.findVehicleById(vehicleId);
+            if (vehicleToRemove == null ||
+                    !vehicleToRemove.getManufacturer().equals(manufacturer) ||
+                    !vehicleToRemove.getModel().equals(model) ||
+                    Math.abs(vehicleToRemove.getPrice() - price) >= 0.01) {
+                return false;
+            }
 
-        for (Vehicle vehicle : vehicles) {
-            if (vehicle.getVehicleId().equals(vehicleId) &&
-                    vehicle.getManufacturer().equals(manufacturer) &&
-                    vehicle.getModel().equals(model) &&
-                    Math.abs(vehicle.getPrice() - price) < 0.01) {
-                vehicleToRemove = vehicle;
-                break;
+            // Can't remove a rented vehicle, and it can't be rented once it is being removed
+            if (!vehicleToRemove.hold()) {
+                return false;
             }
-        }
 
-        if (vehicleToRemove == null) {
-            return false;
+            dealership.removeVehicle(vehicleId);
+
+            // Save updated state
+            journal(inventoryFile, j -> j.appendRemove(dealerId, vehicleId));
+
+            // The ID is only free for reuse once the removal is in the journal
+            unindex(vehicleToRemove);
+            publish(new InventoryEvent(InventoryEvent.Type.REMOVED, vehicleToRemove, dealerId, null, false));
+            return true;
+        } finally {
+            dealership.getLock().unlock();
+            stateLock.readLock().unlock();
         }
+    }
 
-        // Can't remove a rented vehicle
-        if (vehicleToRemove.isRented()) {
-            return false;
+    /**
+     * Removes many vehicles by ID in one call with a single journal flush.
+     * Rented vehicles, IDs that are not in the fleet and vehicles that are transferred
+     * while the call runs are skipped.
+     * @param vehicleIds The IDs of the vehicles you want removed
+     * @param inventoryFile The file where the inventory is stored
+     * @return The vehicles that were removed
+     */
+    public List<Vehicle> removeVehicles(Collection<String> vehicleIds, File inventoryFile) {
+        // Look up the dealerships first, they are locked together below
+        Map<Vehicle, Dealership> candidates = new LinkedHashMap<>();
+        for (String vehicleId : vehicleIds) {
+            Vehicle vehicle = vehicleIndex.get(vehicleId);
+            Dealership dealership = vehicle == null ? null : dealerships.get(vehicle.getDealerId());
+            if (dealership != null) {
+                candidates.put(vehicle, dealership);
+            }
         }
 
-        // Create a new dealership instance with the same ID and name
-        Dealership updatedDealership = new Dealership(dealerId, dealership.getName());
+        stateLock.readLock().lock();
+        List<Dealership> locked = Dealership.lockAll(new HashSet<>(candidates.values()));
+        try {
+            List<Vehicle> removed = new ArrayList<>();
+            for (Map.Entry<Vehicle, Dealership> candidate : candidates.entrySet()) {
+                Vehicle vehicle = candidate.getKey();
+                Dealership dealership = candidate.getValue();
+                if (dealership.findVehicleById(vehicle.getVehicleId()) == vehicle && vehicle.hold()) {
+                    dealership.removeVehicle(vehicle.getVehicleId());
+                    removed.add(vehicle);
+                }
+            }
+            finishRemoval(removed, inventoryFile);
+            return removed;
+        } finally {
+            Dealership.unlockAll(locked);
+            stateLock.readLock().unlock();
+        }
+    }
 
-        // Set acquisition state based on original dealership
-        if (dealership.isAcquisitionEnabled()) {
-            updatedDealership.enableAcquisition();
+    /**
+     * Removes every vehicle of one dealership that matches a filter, for example all vehicles
+     * acquired before a date, with a single journal flush. Rented vehicles are skipped.
+     * @param dealerId The dealership to remove from, or null for the whole fleet
+     * @param filter Selects the vehicles to remove
+     * @param inventoryFile The file where the inventory is stored
+     * @return The vehicles that were removed
+     */
+    public List<Vehicle> removeVehiclesIf(String dealerId, Predicate<Vehicle> filter, File inventoryFile) {
+        Collection<Dealership> scope;
+        if (dealerId == null) {
+            scope = dealerships.values();
         } else {
-            updatedDealership.disableAcquisition();
+            Dealership dealership = dealerships.get(dealerId);
+            scope = dealership == null ? List.of() : List.of(dealership);
         }
 
-        // Add all vehicles except the one to remove
-        for (Vehicle v : vehicles) {
-            if (!v.equals(vehicleToRemove)) {
-                updatedDealership.addVehicle(v);
+        stateLock.readLock().lock();
+        List<Dealership> locked = Dealership.lockAll(scope);
+        try {
+            // Collect first, the dealerships can't change while they are being scanned
+            List<Vehicle> matches = new ArrayList<>();
+            for (Dealership dealership : locked) {
+                for (Vehicle vehicle : dealership.getVehicles()) {
+                    if (filter.test(vehicle) && vehicle.hold()) {
+                        matches.add(vehicle);
+                    }
+                }
+            }
+
+            for (Vehicle vehicle : matches) {
+                dealerships.get(vehicle.getDealerId()).removeVehicle(vehicle.getVehicleId());
             }
+            finishRemoval(matches, inventoryFile);
+            return matches;
+        } finally {
+            Dealership.unlockAll(locked);
+            stateLock.readLock().unlock();
         }
+    }
 
-        // Replace the old dealership with the updated one
-        dealerships.put(dealerId, updatedDealership);
+    /**
+     * Journals vehicles that were taken out of their dealerships, then frees their IDs.
+     * The caller still holds the dealership locks.
+     * @param removed The vehicles that were removed
+     * @param inventoryFile The file where the inventory is stored
+     */
+    private void finishRemoval(List<Vehicle> removed, File inventoryFile) {
+        if (removed.isEmpty()) return;
 
-        // Save updated state
-        saveState(inventoryFile);
-        return true;
+        journal(inventoryFile, j -> j.appendRemoves(removed));
+        for (Vehicle vehicle : removed) {
+            unindex(vehicle);
+            publish(new InventoryEvent(InventoryEvent.Type.REMOVED, vehicle, vehicle.getDealerId(), null, false));
+        }
+    }
+
+    /**
+     * Adds a vehicle that was just put in the fleet index to the range indexes
+     * @param vehicle The vehicle
+     */
+    private void indexByRange(Vehicle vehicle) {
+        priceIndex.add(vehicle);
+        acquisitionIndex.add(vehicle);
+    }
+
+    /**
+     * Takes a vehicle out of the range indexes, then frees its ID in the fleet index.
+     * In this order a new vehicle with the same ID can't be indexed before the old one is gone.
+     * @param vehicle The vehicle that left the fleet
+     */
+    private void unindex(Vehicle vehicle) {
+        priceIndex.remove(vehicle);
+        acquisitionIndex.remove(vehicle);
+        vehicleIndex.remove(vehicle.getVehicleId());
+    }
+
+    /**
+     * Finds the vehicles with a price in a range, cheapest first
+     * @param minPrice The lowest price to include
+     * @param maxPrice The highest price to include
+     * @return The vehicles
+     */
+    public List<Vehicle> findVehiclesByPrice(double minPrice, double maxPrice) {
+        return findVehiclesByPrice(minPrice, maxPrice, null, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Finds the vehicles with a price in a range from the price index, without looking at the
+     * vehicles outside it. For example the five cheapest available SUVs under $30,000.
+     * @param minPrice The lowest price to include, Double.NEGATIVE_INFINITY for no limit
+     * @param maxPrice The highest price to include, Double.POSITIVE_INFINITY for no limit
+     * @param filter Selects the vehicles to return among those in the range, or null for all of them
+     * @param limit The most vehicles to return
+     * @param descending true for the most expensive first
+     * @return The vehicles, sorted by price and then vehicle ID
+     */
+    public List<Vehicle> findVehiclesByPrice(double minPrice, double maxPrice, Predicate<Vehicle> filter,
+                                             int limit, boolean descending) {
+        return priceIndex.range(minPrice, maxPrice, filter, limit, descending);
+    }
+
+    /**
+     * Finds the vehicles acquired in a period, oldest first
+     * @param from The earliest acquisition date to include, or null for no limit
+     * @param to The latest acquisition date to include, or null for no limit
+     * @return The vehicles
+     */
+    public List<Vehicle> findVehiclesAcquiredBetween(Date from, Date to) {
+        return findVehiclesAcquiredBetween(from, to, null, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Finds the vehicles acquired in a period from the acquisition date index, without looking at
+     * the vehicles outside it. Vehicles without an acquisition date are never found.
+     * @param from The earliest acquisition date to include, or null for no limit
+     * @param to The latest acquisition date to include, or null for no limit
+     * @param filter Selects the vehicles to return among those in the period, or null for all of them
+     * @param limit The most vehicles to return
+     * @param descending true for the most recently acquired first
+     * @return The vehicles, sorted by acquisition date and then vehicle ID
+     */
+    public List<Vehicle> findVehiclesAcquiredBetween(Date from, Date to, Predicate<Vehicle> filter,
+                                                     int limit, boolean descending) {
+        double min = from == null ? Double.NEGATIVE_INFINITY : from.getTime();
+        double max = to == null ? Double.POSITIVE_INFINITY : to.getTime();
+        return acquisitionIndex.range(min, max, filter, limit, descending);
+    }
+
+    /**
+     * Finds a vehicle anywhere in the fleet by its ID
+     * @param vehicleId The ID to search for
+     * @return The vehicle, or null if no dealership has it
+     */
+    public Vehicle findVehicle(String vehicleId) {
+        return vehicleIndex.get(vehicleId);
+    }
+
+    /**
+     * Checks if any dealership has a vehicle with the given ID
+     * @param vehicleId The ID to search for
+     * @return true if the vehicle is in the fleet, otherwise false
+     */
+    public boolean containsVehicle(String vehicleId) {
+        return vehicleIndex.containsKey(vehicleId);
+    }
+
+    /**
+     * Finds the dealership that currently holds a vehicle
+     * @param vehicleId The ID of the vehicle
+     * @return The dealership, or null if the vehicle is not in the fleet
+     */
+    public Dealership findDealershipForVehicle(String vehicleId) {
+        Vehicle vehicle = vehicleIndex.get(vehicleId);
+        return vehicle == null ? null : dealerships.get(vehicle.getDealerId());
     }
 
     /**
@@ -190,6 +764,11 @@ public class DealershipManager {
             }
         }
 
+        // Fold journaled changes into the snapshot so the export sees them
+        if (InventoryJournal.journalFileFor(inventoryFile).length() > 0) {
+            saveState(inventoryFile);
+        }
+
         List<Vehicle> inventory = jsonFileHandler.readInventory(inventoryFile);
         if (inventory.isEmpty()) {
             // Try to use in-memory vehicles as fallback
@@ -229,12 +808,9 @@ public class DealershipManager {
      * @return true after acquisition was enabled
      */
     public boolean enableAcquisition(String dealerId) {
-        Dealership dealership = dealerships.get(dealerId);
-        if (dealership == null) {
-            dealership = new Dealership(dealerId);
-            dealerships.put(dealerId, dealership);
-        }
+        Dealership dealership = dealerships.computeIfAbsent(dealerId, Dealership::new);
         dealership.enableAcquisition();
+        publish(new InventoryEvent(InventoryEvent.Type.ACQUISITION_ENABLED, null, dealerId, null, false));
         return true;
     }
 
@@ -244,12 +820,9 @@ public class DealershipManager {
      * @return true after disabling acquisition
      */
     public boolean disableAcquisition(String dealerId) {
-        Dealership dealership = dealerships.get(dealerId);
-        if (dealership == null) {
-            dealership = new Dealership(dealerId);
-            dealerships.put(dealerId, dealership);
-        }
+        Dealership dealership = dealerships.computeIfAbsent(dealerId, Dealership::new);
         dealership.disableAcquisition();
+        publish(new InventoryEvent(InventoryEvent.Type.ACQUISITION_DISABLED, null, dealerId, null, false));
         return true;
     }
 
@@ -260,27 +833,158 @@ public class DealershipManager {
      * @return Number of vehicles successfully imported
      */
     public int importXMLFile(File xmlFile, File inventoryFile) {
-        List<Vehicle> importedVehicles = xmlFileHandler.importXML(xmlFile);
-        int successCount = 0;
+        IngestionReport report = ingestXMLFile(xmlFile, inventoryFile);
+        System.out.println("XML import: " + report);
+        return report.getAccepted();
+    }
 
-        for (Vehicle vehicle : importedVehicles) {
-            String dealerId = vehicle.getDealerId();
-            String dealerName = null;
+    /**
+     * Imports vehicles from an XML file in batches. The file is parsed without holding any lock
+     * and every batch is journaled with a single flush.
+     * @param xmlFile The XML file to import
+     * @param inventoryFile The inventory file to update
+     * @return How many vehicles were accepted, duplicates or rejected, and why the import stopped
+     * early if the file could not be read to the end
+     */
+    public IngestionReport ingestXMLFile(File xmlFile, File inventoryFile) {
+        return ingestXMLFile(xmlFile, inventoryFile, report -> { });
+    }
 
-            if (vehicle.getMetadata().containsKey("dealer_name")) {
-                dealerName = (String) vehicle.getMetadata().get("dealer_name");
-            }
+    /**
+     * Imports vehicles from an XML file in batches and reports after every batch.
+     * If onBatch throws, the import stops; the batches already reported stay imported.
+     * If the file can't be read to the end, the vehicles parsed before the error are imported
+     * and the report's failure says the import is partial.
+     * @param xmlFile The XML file to import
+     * @param inventoryFile The inventory file to update
+     * @param onBatch Called with the running totals after every batch is journaled
+     * @return How many vehicles were accepted, duplicates or rejected, and why the import stopped
+     * early if the file could not be read to the end
+     */
+    public IngestionReport ingestXMLFile(File xmlFile, File inventoryFile, Consumer<IngestionReport> onBatch) {
+        IngestionReport report = new IngestionReport();
+        List<Vehicle> batch = new ArrayList<>(INGEST_BATCH_SIZE);
 
-            if (processAddVehicleCommand(dealerId, vehicle, dealerName)) {
-                successCount++;
+        try {
+            xmlFileHandler.readXML(xmlFile, vehicle -> {
+                batch.add(vehicle);
+                if (batch.size() == INGEST_BATCH_SIZE) {
+                    ingestVehicles(batch, report, inventoryFile);
+                    batch.clear();
+                    onBatch.accept(report);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error parsing XML file: " + e.getMessage());
+            report.setFailure(e.getMessage());
+        }
+        ingestVehicles(batch, report, inventoryFile);
+        onBatch.accept(report);
+
+        return report;
+    }
+
+    /**
+     * Adds many vehicles in one call. Vehicles are grouped by dealership, acquisition is
+     * checked once per dealership and duplicate IDs are found with hash lookups. Nothing is
+     * printed per vehicle, the returned report has the counts instead.
+     * @param vehicles The vehicles you want added
+     * @param inventoryFile The inventory file to update
+     * @return How many vehicles were accepted, duplicates or rejected
+     */
+    public IngestionReport ingestVehicles(Collection<Vehicle> vehicles, File inventoryFile) {
+        IngestionReport report = new IngestionReport();
+        ingestVehicles(vehicles, report, inventoryFile);
+        return report;
+    }
+
+    private void ingestVehicles(Collection<Vehicle> vehicles, IngestionReport report, File inventoryFile) {
+        ingest(vehicles, report, new ArrayList<>(), inventoryFile);
+    }
+
+    /**
+     * Adds a batch of vehicles to their dealerships. The dealerships in the batch are locked
+     * together, so the batch is journaled with a single flush before anyone can change its vehicles.
+     * @param vehicles The vehicles to add
+     * @param report Counts accepted, duplicate and rejected vehicles
+     * @param accepted Collects the accepted vehicles, or null if they are not needed
+     * @param inventoryFile The file where the inventory is stored, or null to not journal the batch
+     */
+    private void ingest(Collection<Vehicle> vehicles, IngestionReport report, List<Vehicle> accepted, File inventoryFile) {
+        // Group the batch by dealership, keeping the order of the input
+        Map<String, List<Vehicle>> byDealer = new LinkedHashMap<>();
+        for (Vehicle vehicle : vehicles) {
+            if (vehicle.getVehicleId() == null || vehicle.getDealerId() == null) {
+                report.addRejected(1);
+                continue;
             }
+            byDealer.computeIfAbsent(vehicle.getDealerId(), id -> new ArrayList<>()).add(vehicle);
         }
 
-        if (successCount > 0) {
-            saveState(inventoryFile);
+        Map<Dealership, List<Vehicle>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Vehicle>> group : byDealer.entrySet()) {
+            String dealerId = group.getKey();
+            List<Vehicle> dealerVehicles = group.getValue();
+
+            // The last non-empty dealer name in the batch wins, like it does one vehicle at a time
+            String dealerName = null;
+            for (Vehicle vehicle : dealerVehicles) {
+                Object name = vehicle.getMetadata().get("dealer_name");
+                if (name != null && !name.toString().isEmpty()) {
+                    dealerName = name.toString();
+                }
+            }
+
+            Dealership dealership = getOrCreateDealership(dealerId, dealerName);
+            if (dealerName != null) {
+                dealership.setName(dealerName);
+            }
+            groups.put(dealership, dealerVehicles);
         }
 
-        return successCount;
+        stateLock.readLock().lock();
+        List<Dealership> locked = Dealership.lockAll(groups.keySet());
+        try {
+            // Vehicles can be rented as soon as they are in the index, so their state is taken before
+            List<InventoryEvent> events = isPublishing() ? new ArrayList<>() : null;
+            for (Map.Entry<Dealership, List<Vehicle>> group : groups.entrySet()) {
+                Dealership dealership = group.getKey();
+                List<Vehicle> dealerVehicles = group.getValue();
+
+                if (!dealership.isAcquisitionEnabled()) {
+                    report.addRejected(dealerVehicles.size());
+                    continue;
+                }
+
+                for (Vehicle vehicle : dealerVehicles) {
+                    boolean rented = vehicle.isRented();
+                    // The fleet index catches IDs that are already in the fleet or earlier in this batch
+                    if (vehicleIndex.putIfAbsent(vehicle.getVehicleId(), vehicle) != null) {
+                        report.addDuplicates(1);
+                        continue;
+                    }
+                    indexByRange(vehicle);
+                    dealership.addVehicle(vehicle);
+                    report.addAccepted(1);
+                    if (accepted != null) {
+                        accepted.add(vehicle);
+                    }
+                    if (events != null) {
+                        events.add(new InventoryEvent(InventoryEvent.Type.ADDED, vehicle, dealership.getDealerId(), null, rented));
+                    }
+                }
+            }
+
+            if (accepted != null && !accepted.isEmpty()) {
+                journal(inventoryFile, j -> j.appendAdds(accepted));
+            }
+            if (events != null) {
+                events.forEach(this::publish);
+            }
+        } finally {
+            Dealership.unlockAll(locked);
+            stateLock.readLock().unlock();
+        }
     }
 
     /**
@@ -292,28 +996,46 @@ public class DealershipManager {
      * @return true if transfer was successful, false otherwise
      */
     public boolean transferVehicle(String sourceDealerId, String targetDealerId, String vehicleId, File inventoryFile) {
+        return applyTransfer(sourceDealerId, targetDealerId, vehicleId, inventoryFile);
+    }
+
+    /**
+     * Moves a vehicle between dealerships, creating the target dealership if needed.
+     * Both dealerships stay locked, in dealer ID order, until the transfer is journaled.
+     * @param sourceDealerId The ID of the source dealership
+     * @param targetDealerId The ID of the target dealership
+     * @param vehicleId The ID of the vehicle to transfer
+     * @param inventoryFile The inventory file to update, or null to not journal the transfer
+     * @return true if transfer was successful, false otherwise
+     */
+    private boolean applyTransfer(String sourceDealerId, String targetDealerId, String vehicleId, File inventoryFile) {
         Dealership sourceDealership = dealerships.get(sourceDealerId);
 
         // If target dealership doesn't exist, create it
-        Dealership targetDealership = dealerships.get(targetDealerId);
-        if (targetDealership == null) {
-            targetDealership = new Dealership(targetDealerId);
-            targetDealership.enableAcquisition();
-            dealerships.put(targetDealerId, targetDealership);
-        }
+        Dealership targetDealership = getOrCreateDealership(targetDealerId, null);
 
         if (sourceDealership == null) return false;
         if (!targetDealership.isAcquisitionEnabled()) return false;
 
-        boolean result = sourceDealership.transferVehicle(vehicleId, targetDealership);
-        if (result) {
-            saveState(inventoryFile);
+        stateLock.readLock().lock();
+        List<Dealership> locked = Dealership.lockAll(List.of(sourceDealership, targetDealership));
+        try {
+            boolean result = sourceDealership.transferVehicle(vehicleId, targetDealership);
+            if (result) {
+                journal(inventoryFile, j -> j.appendTransfer(sourceDealerId, targetDealerId, vehicleId));
+                Vehicle vehicle = vehicleIndex.get(vehicleId);
+                publish(new InventoryEvent(InventoryEvent.Type.TRANSFERRED, vehicle, targetDealerId, sourceDealerId, vehicle.isRented()));
+            }
+            return result;
+        } finally {
+            Dealership.unlockAll(locked);
+            stateLock.readLock().unlock();
         }
-        return result;
     }
 
     /**
-     * Rents a vehicle
+     * Rents a vehicle. The period can't overlap a booking, except a booking for exactly the
+     * same period, which is picked up by the rental.
      * @param dealerId The dealer ID
      * @param vehicleId The vehicle ID
      * @param startDateStr The rental start date string (MM/dd/yyyy)
@@ -330,11 +1052,21 @@ public class DealershipManager {
             Date startDate = dateFormat.parse(startDateStr);
             Date endDate = dateFormat.parse(endDateStr);
 
-            boolean result = dealership.rentVehicle(vehicleId, startDate, endDate);
-            if (result) {
-                saveState(inventoryFile);
+            // The rental is a compare-and-set on the vehicle, no dealership lock is taken
+            stateLock.readLock().lock();
+            try {
+                Vehicle vehicle = vehicleIndex.get(vehicleId);
+                if (vehicle == null || !dealerId.equals(vehicle.getDealerId())) return false;
+
+                RentalState state = vehicle.tryRent(startDate, endDate);
+                if (state == null) return false;
+
+                journal(inventoryFile, j -> j.appendRent(dealerId, vehicleId, state));
+                publish(new InventoryEvent(InventoryEvent.Type.RENTED, vehicle, dealerId, null, true));
+                return true;
+            } finally {
+                stateLock.readLock().unlock();
             }
-            return result;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -342,7 +1074,108 @@ public class DealershipManager {
     }
 
     /**
-     * Returns a rented vehicle
+     * Books a vehicle for a later period. The vehicle stays available for other periods, and
+     * renting it for exactly the booked period picks the booking up.
+     * @param dealerId The dealer ID
+     * @param vehicleId The vehicle ID
+     * @param startDateStr The first day of the booking (MM/dd/yyyy)
+     * @param endDateStr The last day of the booking (MM/dd/yyyy)
+     * @param inventoryFile The inventory file to update
+     * @return true if the period was free and is now booked, false otherwise
+     */
+    public boolean reserveVehicle(String dealerId, String vehicleId, String startDateStr, String endDateStr, File inventoryFile) {
+        return changeReservation(InventoryJournal.OP_RESERVE, dealerId, vehicleId, startDateStr, endDateStr, inventoryFile);
+    }
+
+    /**
+     * Cancels a booking made with reserveVehicle
+     * @param dealerId The dealer ID
+     * @param vehicleId The vehicle ID
+     * @param startDateStr The first day of the booking (MM/dd/yyyy)
+     * @param endDateStr The last day of the booking (MM/dd/yyyy)
+     * @param inventoryFile The inventory file to update
+     * @return true if the booking was cancelled, false if there was no such booking
+     */
+    public boolean cancelReservation(String dealerId, String vehicleId, String startDateStr, String endDateStr, File inventoryFile) {
+        return changeReservation(InventoryJournal.OP_CANCEL, dealerId, vehicleId, startDateStr, endDateStr, inventoryFile);
+    }
+
+    /**
+     * Books or cancels a period with a compare-and-set on the vehicle, like a rental
+     * @param op OP_RESERVE or OP_CANCEL
+     */
+    private boolean changeReservation(String op, String dealerId, String vehicleId, String startDateStr,
+                                      String endDateStr, File inventoryFile) {
+        try {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy");
+            Date startDate = dateFormat.parse(startDateStr);
+            Date endDate = dateFormat.parse(endDateStr);
+
+            stateLock.readLock().lock();
+            try {
+                Vehicle vehicle = vehicleIndex.get(vehicleId);
+                if (vehicle == null || !dealerId.equals(vehicle.getDealerId())) return false;
+
+                RentalState state = InventoryJournal.OP_RESERVE.equals(op)
+                        ? vehicle.tryReserve(startDate, endDate) : vehicle.tryCancelReservation(startDate, endDate);
+                if (state == null) return false;
+
+                journal(inventoryFile, j -> j.appendReservation(op, dealerId, vehicleId, state));
+                return true;
+            } finally {
+                stateLock.readLock().unlock();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Finds the vehicles that are free for every day of a period: not held, not rented during
+     * it and not booked on any of its days. With a dealer ID only that dealership's vehicles are
+     * looked at, without one every vehicle of the fleet is; each costs one binary search over
+     * its bookings. InventoryIndex.findAvailable answers the same query looking only at the
+     * vehicles of the right dealer and type.
+     * @param dealerId The dealer ID, or null for the whole fleet
+     * @param vehicleType The class name of the vehicles, like SUV, ignoring case, or null for every type
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period, not before the first
+     * @return The free vehicles in dealership order
+     * @throws IllegalArgumentException if a date is missing or the period ends before it starts
+     */
+    public List<Vehicle> findAvailableVehicles(String dealerId, String vehicleType, Date startDate, Date endDate) {
+        checkPeriod(startDate, endDate);
+        long start = startDate.getTime();
+        long end = endDate.getTime();
+        List<Vehicle> available = new ArrayList<>();
+        List<Vehicle> candidates = dealerId == null ? getVehiclesForDisplay() : getVehiclesForDealer(dealerId);
+        for (Vehicle vehicle : candidates) {
+            if ((vehicleType == null || vehicle.getClass().getSimpleName().equalsIgnoreCase(vehicleType))
+                    && vehicle.getRentalState().isFreeBetween(start, end)) {
+                available.add(vehicle);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Checks the period of an availability query
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @throws IllegalArgumentException if a date is missing or the period ends before it starts
+     */
+    static void checkPeriod(Date startDate, Date endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Start and end date are required");
+        }
+        if (endDate.before(startDate)) {
+            throw new IllegalArgumentException("End date must be on or after start date");
+        }
+    }
+
+    /**
+     * Returns a rented vehicle, its bookings for later periods stay
      * @param dealerId The dealer ID
      * @param vehicleId The vehicle ID
      * @param inventoryFile The inventory file to update
@@ -352,22 +1185,161 @@ public class DealershipManager {
         Dealership dealership = dealerships.get(dealerId);
         if (dealership == null) return false;
 
-        boolean result = dealership.returnVehicle(vehicleId);
-        if (result) {
-            saveState(inventoryFile);
+        stateLock.readLock().lock();
+        try {
+            Vehicle vehicle = vehicleIndex.get(vehicleId);
+            if (vehicle == null || !dealerId.equals(vehicle.getDealerId())) return false;
+
+            RentalState state = vehicle.tryReturn();
+            if (state == null) return false;
+
+            journal(inventoryFile, j -> j.appendReturn(dealerId, vehicleId, state));
+            publish(new InventoryEvent(InventoryEvent.Type.RETURNED, vehicle, dealerId, null, false));
+            return true;
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the IDs of the dealerships that have at least one vehicle
+     * @return The dealer IDs in alphabetical order
+     */
+    public List<String> getDealerIds() {
+        List<String> dealerIds = new ArrayList<>();
+        for (Dealership dealership : dealerships.values()) {
+            if (dealership.getVehicleCount() > 0) {
+                dealerIds.add(dealership.getDealerId());
+            }
         }
-        return result;
+        Collections.sort(dealerIds);
+        return dealerIds;
+    }
+
+    /**
+     * Gets the number of vehicles of one dealership
+     * @param dealerId The dealer ID
+     * @return The number of vehicles, 0 if there is no such dealership
+     */
+    public int getVehicleCount(String dealerId) {
+        Dealership dealership = dealerships.get(dealerId);
+        return dealership == null ? 0 : dealership.getVehicleCount();
+    }
+
+    /**
+     * Gets a read-only list of the vehicles of one dealership, without copying them
+     * @param dealerId The dealer ID
+     * @return The vehicles, or an empty list if there is no such dealership
+     */
+    public List<Vehicle> getVehiclesForDealer(String dealerId) {
+        Dealership dealership = dealerships.get(dealerId);
+        return dealership == null ? List.of() : dealership.getVehicles();
     }
 
     /**
-     * Gets a list of all vehicles for all the dealerships
+     * Gets a read-only list of all vehicles for all the dealerships. The list is a view over the
+     * dealership snapshots; while no dealership changes, every call returns the same list without
+     * copying any vehicles.
      * @return A list containing all vehicles in all the dealerships
      */
     public List<Vehicle> getVehiclesForDisplay() {
-        List<Vehicle> allVehicles = new ArrayList<>();
+        FleetView current = fleetView;
+        if (current.isViewOf(dealerships.values())) {
+            return current;
+        }
+
+        List<List<Vehicle>> parts = new ArrayList<>(dealerships.size());
         for (Dealership dealership : dealerships.values()) {
-            allVehicles.addAll(dealership.getVehicles());
+            parts.add(dealership.getVehicles());
+        }
+        current = new FleetView(parts);
+        fleetView = current;
+        return current;
+    }
+
+    /**
+     * A read-only list made of the vehicle snapshots of every dealership, one after the other
+     */
+    private static final class FleetView extends AbstractList<Vehicle> implements RandomAccess {
+        private final List<List<Vehicle>> parts;    // Dealership snapshots
+        private final int[] ends;                   // Index just past the last vehicle of each part
+        private final int size;
+
+        FleetView(List<List<Vehicle>> parts) {
+            this.parts = parts;
+            this.ends = new int[parts.size()];
+            int total = 0;
+            for (int i = 0; i < parts.size(); i++) {
+                total += parts.get(i).size();
+                ends[i] = total;
+            }
+            this.size = total;
+        }
+
+        /**
+         * Checks if this view was built from the current snapshots of these dealerships
+         */
+        boolean isViewOf(Collection<Dealership> dealerships) {
+            if (dealerships.size() != parts.size()) return false;
+            int i = 0;
+            for (Dealership dealership : dealerships) {
+                if (i >= parts.size() || dealership.getVehicles() != parts.get(i++)) return false;
+            }
+            return i == parts.size();
+        }
+
+        @Override
+        public Vehicle get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            int part = Arrays.binarySearch(ends, index + 1);
+            if (part < 0) {
+                part = -part - 1;
+            }
+            // Skip empty dealerships that end at the same index
+            while (part > 0 && ends[part - 1] == index + 1) {
+                part--;
+            }
+            int start = part == 0 ? 0 : ends[part - 1];
+            return parts.get(part).get(index - start);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Vehicle> iterator() {
+            return new Iterator<>() {
+                private int part;       // Dealership snapshot being walked
+                private int index;      // Next position in that snapshot
+
+                @Override
+                public boolean hasNext() {
+                    while (part < parts.size() && index >= parts.get(part).size()) {
+                        part++;
+                        index = 0;
+                    }
+                    return part < parts.size();
+                }
+
+                @Override
+                public Vehicle next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return parts.get(part).get(index++);
+                }
+            };
+        }
+
+        @Override
+        public void forEach(Consumer<? super Vehicle> action) {
+            for (List<Vehicle> part : parts) {
+                for (int i = 0; i < part.size(); i++) {
+                    action.accept(part.get(i));
+                }
+            }
         }
-        return allVehicles;
     }
 }
\ No newline at end of file
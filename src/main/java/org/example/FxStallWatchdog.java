@@ -0,0 +1,116 @@
+package org.example;
+
+import javafx.animation.AnimationTimer;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The FxStallWatchdog class watches the JavaFX Application Thread for stalls. An animation timer
+ * records every pulse; a background thread reports each stall longer than the frame budget to
+ * System.err with the stack of the FX thread at that moment, so the blocking code can be found.
+ * <p>
+ * The timer keeps pulses running even when nothing changes on screen, so the watchdog is meant
+ * for development and is only started when asked for (see DealershipJavaFXGUI).
+ */
+public class FxStallWatchdog implements Closeable {
+    private final long budgetNanos;                 // Longest gap between pulses that is not a stall
+    private final AnimationTimer pulseTimer;        // Records the time of every pulse on the FX thread
+    private final Thread monitor;                   // Reports stalls while they are happening
+    private Thread fxThread;                        // The thread start was called on
+    private volatile long lastPulse;                // System.nanoTime of the last pulse
+    private volatile long longestStallNanos;        // Longest gap between two pulses
+    private volatile int stallCount;                // Gaps longer than the budget
+    private volatile boolean running;
+
+    /**
+     * Constructor that initialize an FxStallWatchdog
+     * @param budgetMillis Longest the FX thread may be busy before it counts as a stall
+     */
+    public FxStallWatchdog(long budgetMillis) {
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.pulseTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                recordPulse();
+            }
+        };
+        this.monitor = new Thread(this::monitor, "fx-stall-watchdog");
+        this.monitor.setDaemon(true);
+    }
+
+    /**
+     * Starts watching, must be called on the JavaFX Application Thread
+     */
+    public void start() {
+        fxThread = Thread.currentThread();
+        lastPulse = System.nanoTime();
+        running = true;
+        pulseTimer.start();
+        monitor.start();
+    }
+
+    /**
+     * Gets the longest time the FX thread went without a pulse
+     * @return The longest stall in milliseconds
+     */
+    public long getLongestStallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(longestStallNanos);
+    }
+
+    /**
+     * Gets the number of stalls longer than the budget
+     * @return stallCount
+     */
+    public int getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * Stops watching, must be called on the JavaFX Application Thread
+     */
+    @Override
+    public void close() {
+        running = false;
+        pulseTimer.stop();
+        monitor.interrupt();
+    }
+
+    private void recordPulse() {
+        long now = System.nanoTime();
+        long gap = now - lastPulse;
+        lastPulse = now;
+        if (gap > longestStallNanos) {
+            longestStallNanos = gap;
+        }
+        if (gap > budgetNanos) {
+            stallCount++;
+        }
+    }
+
+    /**
+     * Checks twice per budget whether the FX thread is stalled, and reports each stall once
+     */
+    private void monitor() {
+        long reportedPulse = -1;
+        while (running) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(budgetNanos / 2);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long pulse = lastPulse;
+            long stalled = System.nanoTime() - pulse;
+            if (stalled > budgetNanos && pulse != reportedPulse) {
+                reportedPulse = pulse;
+                StringBuilder report = new StringBuilder("FX thread stalled for ")
+                        .append(TimeUnit.NANOSECONDS.toMillis(stalled)).append(" ms, at:\n");
+                for (StackTraceElement element : fxThread.getStackTrace()) {
+                    report.append("\tat ").append(element).append('\n');
+                }
+                System.err.print(report);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example;
+
+/**
+ * The IngestionReport class counts what happened to the vehicles of a bulk load:
+ * how many were accepted, how many had an ID that was already in the fleet,
+ * and how many were rejected because they were invalid or their dealer had acquisition disabled.
+ * A load that stopped early, like an import of a file that is cut off, says why in getFailure;
+ * the vehicles counted before it stay loaded.
+ */
+public class IngestionReport {
+    private int accepted;       // Vehicles added to a dealership
+    private int duplicates;     // Vehicles whose ID was already in the fleet or earlier in the load
+    private int rejected;       // Invalid vehicles or vehicles for dealers with acquisition disabled
+    private String failure;     // Why the load stopped before the end, null if it got through
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Gets the number of vehicles that were offered
+     * @return accepted + duplicates + rejected
+     */
+    public int getTotal() {
+        return accepted + duplicates + rejected;
+    }
+
+    /**
+     * Gets why the load stopped before reaching the end of its input
+     * @return The reason, or null if every vehicle was offered
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Checks whether the load got through all of its input
+     * @return true if it did not stop early
+     */
+    public boolean isComplete() {
+        return failure == null;
+    }
+
+    void setFailure(String failure) {
+        this.failure = failure;
+    }
+
+    void addAccepted(int count) {
+        accepted += count;
+    }
+
+    void addDuplicates(int count) {
+        duplicates += count;
+    }
+
+    void addRejected(int count) {
+        rejected += count;
+    }
+
+    @Override
+    public String toString() {
+        String counts = "Accepted " + accepted + ", duplicates " + duplicates + ", rejected " + rejected;
+        return failure == null ? counts : counts + ", stopped early: " + failure;
+    }
+}
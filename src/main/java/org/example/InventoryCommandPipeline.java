@@ -0,0 +1,295 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The InventoryCommandPipeline class funnels inventory changes through a single writer thread.
+ * Callers submit changes to a bounded queue and get a CompletableFuture back. The writer takes
+ * a batch of queued changes, applies them in the order they were submitted, and makes the whole
+ * batch durable with one journal flush and one fsync before completing the futures.
+ * <p>
+ * Larger batches and a longer linger give more changes per fsync (higher throughput), smaller
+ * ones complete each future sooner (lower latency).
+ */
+public class InventoryCommandPipeline implements Closeable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    private static final long DEFAULT_LINGER_MILLIS = 1;
+
+    private final DealershipManager manager;
+    private final File inventoryFile;
+    private final BlockingQueue<Command<?>> queue;      // Submitted changes waiting for the writer
+    private final int maxBatchSize;                     // Most changes committed with one fsync
+    private final long lingerNanos;                     // How long a batch waits for more changes
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile long commitCount;                  // Batches committed, only written by the writer
+    private volatile long commandCount;                 // Changes committed, only written by the writer
+
+    /**
+     * Constructor that initialize a pipeline with the default queue capacity, batch size and linger
+     * @param manager The manager the changes are applied to
+     * @param inventoryFile The inventory file whose journal the changes are written to
+     */
+    public InventoryCommandPipeline(DealershipManager manager, File inventoryFile) {
+        this(manager, inventoryFile, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE, DEFAULT_LINGER_MILLIS);
+    }
+
+    /**
+     * Constructor that initialize a pipeline
+     * @param manager The manager the changes are applied to
+     * @param inventoryFile The inventory file whose journal the changes are written to
+     * @param queueCapacity Changes that can wait before submit blocks
+     * @param maxBatchSize Most changes committed with one fsync
+     * @param lingerMillis How long a batch waits for more changes before it is committed, 0 to never wait
+     */
+    public InventoryCommandPipeline(DealershipManager manager, File inventoryFile,
+                                    int queueCapacity, int maxBatchSize, long lingerMillis) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        this.manager = manager;
+        this.inventoryFile = inventoryFile;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.writer = new Thread(this::run, "inventory-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Starts the writer thread
+     */
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * Submits a vehicle to add
+     * @param vehicle The vehicle you want added
+     * @return Completes with true once the vehicle is added and durable, or false if it was not added
+     */
+    public CompletableFuture<Boolean> addVehicle(Vehicle vehicle) {
+        return submit(() -> manager.addVehicleToInventory(vehicle, inventoryFile));
+    }
+
+    /**
+     * Submits a vehicle to remove, see DealershipManager.removeVehicleFromInventory
+     * @return Completes with true once the vehicle is removed and durable, otherwise false
+     */
+    public CompletableFuture<Boolean> removeVehicle(String dealerId, String vehicleId, String manufacturer,
+                                                    String model, double price) {
+        return submit(() -> manager.removeVehicleFromInventory(dealerId, vehicleId, manufacturer, model, price, inventoryFile));
+    }
+
+    /**
+     * Submits a transfer between dealerships
+     * @return Completes with true once the transfer is durable, otherwise false
+     */
+    public CompletableFuture<Boolean> transferVehicle(String sourceDealerId, String targetDealerId, String vehicleId) {
+        return submit(() -> manager.transferVehicle(sourceDealerId, targetDealerId, vehicleId, inventoryFile));
+    }
+
+    /**
+     * Submits a rental, the dates use MM/dd/yyyy
+     * @return Completes with true once the rental is durable, otherwise false
+     */
+    public CompletableFuture<Boolean> rentVehicle(String dealerId, String vehicleId, String startDate, String endDate) {
+        return submit(() -> manager.rentVehicle(dealerId, vehicleId, startDate, endDate, inventoryFile));
+    }
+
+    /**
+     * Submits a booking for a later period, the dates use MM/dd/yyyy
+     * @return Completes with true once the booking is durable, otherwise false
+     */
+    public CompletableFuture<Boolean> reserveVehicle(String dealerId, String vehicleId, String startDate, String endDate) {
+        return submit(() -> manager.reserveVehicle(dealerId, vehicleId, startDate, endDate, inventoryFile));
+    }
+
+    /**
+     * Submits the cancellation of a booking, the dates use MM/dd/yyyy
+     * @return Completes with true once the cancellation is durable, otherwise false
+     */
+    public CompletableFuture<Boolean> cancelReservation(String dealerId, String vehicleId, String startDate, String endDate) {
+        return submit(() -> manager.cancelReservation(dealerId, vehicleId, startDate, endDate, inventoryFile));
+    }
+
+    /**
+     * Submits a return
+     * @return Completes with true once the return is durable, otherwise false
+     */
+    public CompletableFuture<Boolean> returnVehicle(String dealerId, String vehicleId) {
+        return submit(() -> manager.returnVehicle(dealerId, vehicleId, inventoryFile));
+    }
+
+    /**
+     * Submits any change. The change runs on the writer thread and must journal to this
+     * pipeline's inventory file for the future to mean durable.
+     * Blocks while the queue is full.
+     * @param change Applies the change and returns its result
+     * @return Completes with the result once the batch holding the change is durable
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> change) {
+        Command<T> command = new Command<>(change);
+        if (!running) {
+            command.future.completeExceptionally(new IllegalStateException("Pipeline is closed"));
+            return command.future;
+        }
+        try {
+            queue.put(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            command.future.completeExceptionally(e);
+        }
+        return command.future;
+    }
+
+    /**
+     * Gets the inventory file whose journal the changes are written to
+     * @return inventoryFile
+     */
+    public File getInventoryFile() {
+        return inventoryFile;
+    }
+
+    /**
+     * Gets the number of batches committed so far
+     * @return commitCount
+     */
+    public long getCommitCount() {
+        return commitCount;
+    }
+
+    /**
+     * Gets the number of changes committed so far
+     * @return commandCount
+     */
+    public long getCommandCount() {
+        return commandCount;
+    }
+
+    /**
+     * Stops taking changes, commits the ones already queued and stops the writer thread
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Changes submitted while the writer was stopping are not applied
+        Command<?> late;
+        while ((late = queue.poll()) != null) {
+            late.future.completeExceptionally(new IllegalStateException("Pipeline is closed"));
+        }
+    }
+
+    private void run() {
+        List<Command<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Command<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                // Commit what was taken, the writer only stops once the pipeline is closed
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds queued changes to the batch until it is full or the linger time is up
+     */
+    private void fillBatch(List<Command<?>> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            if (batch.size() >= maxBatchSize) return;
+
+            long wait = deadline - System.nanoTime();
+            if (wait <= 0) return;
+            Command<?> next = queue.poll(wait, TimeUnit.NANOSECONDS);
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Applies a batch in order, makes it durable with one fsync and completes its futures.
+     * If the batch can't be made durable every future in it fails, and the writer goes on
+     * with the next batch.
+     */
+    private void commit(List<Command<?>> batch) {
+        Exception failure = null;
+        try {
+            manager.beginJournalBatch(inventoryFile);
+            try {
+                for (Command<?> command : batch) {
+                    command.apply();
+                }
+            } finally {
+                manager.commitJournalBatch(inventoryFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not commit inventory changes: " + e.getMessage());
+            failure = e;
+        }
+
+        for (Command<?> command : batch) {
+            command.complete(failure);
+        }
+        if (failure == null) {
+            commitCount++;
+            commandCount += batch.size();
+        }
+    }
+
+    /**
+     * A submitted change and the future of its caller
+     */
+    private static final class Command<T> {
+        private final Supplier<T> change;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private RuntimeException error;
+
+        Command(Supplier<T> change) {
+            this.change = change;
+        }
+
+        void apply() {
+            try {
+                result = change.get();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+        void complete(Exception commitFailure) {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else if (commitFailure != null) {
+                future.completeExceptionally(commitFailure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
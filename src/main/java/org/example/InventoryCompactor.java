@@ -0,0 +1,85 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The InventoryCompactor class periodically folds the inventory journal into a fresh snapshot
+ * on a background thread, so startup replay time stays bounded.
+ */
+public class InventoryCompactor implements Closeable {
+    private final DealershipManager manager;            // Manager whose state is compacted
+    private final File inventoryFile;                   // Snapshot file the journal belongs to
+    private final CompactionPolicy policy;              // Thresholds that trigger compaction
+    private final ScheduledExecutorService scheduler;   // Runs the threshold checks
+
+    /**
+     * Constructor that initialize an InventoryCompactor
+     * @param manager The manager whose state is compacted
+     * @param inventoryFile The snapshot file the journal belongs to
+     * @param policy The thresholds that trigger compaction
+     */
+    public InventoryCompactor(DealershipManager manager, File inventoryFile, CompactionPolicy policy) {
+        this.manager = manager;
+        this.inventoryFile = inventoryFile;
+        this.policy = policy;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts checking the thresholds in the background
+     */
+    public void start() {
+        long interval = policy.getCheckIntervalMillis();
+        scheduler.scheduleWithFixedDelay(this::compactIfNeeded, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Compacts the journal if any threshold has been reached
+     */
+    public void compactIfNeeded() {
+        try {
+            if (manager.needsCompaction(inventoryFile, policy)) {
+                long start = System.currentTimeMillis();
+                manager.compact(inventoryFile);
+                System.out.println("Compacted inventory journal in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (Exception e) {
+            // Keep the schedule alive, the next check will try again
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compacts the journal on the background thread regardless of the thresholds
+     */
+    public void requestCompaction() {
+        scheduler.execute(() -> {
+            try {
+                manager.compact(inventoryFile);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Stops the background checks
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example;
+
+/**
+ * The InventoryEvent class describes one change to the inventory. DealershipManager publishes
+ * an event to its InventoryListeners for every vehicle that is added, removed, rented, returned
+ * or transferred, and for every dealership whose acquisition is switched on or off.
+ */
+public final class InventoryEvent {
+    /**
+     * What changed
+     */
+    public enum Type {
+        ADDED,                  // A vehicle was added to a dealership
+        REMOVED,                // A vehicle was removed from its dealership
+        RENTED,                 // A vehicle was rented
+        RETURNED,               // A rented vehicle was returned
+        TRANSFERRED,            // A vehicle moved to another dealership
+        ACQUISITION_ENABLED,    // A dealership started accepting vehicles
+        ACQUISITION_DISABLED,   // A dealership stopped accepting vehicles
+        RELOADED                // The whole inventory was read from a file, listeners should read it again
+    }
+
+    private final Type type;
+    private final Vehicle vehicle;          // The vehicle that changed, null for dealership and reload events
+    private final String dealerId;          // The dealer of the vehicle after the change, or the dealer that changed
+    private final String sourceDealerId;    // The dealer a transferred vehicle left, otherwise null
+    private final boolean rented;           // Whether the vehicle was rented right after the change
+
+    /**
+     * Constructor that initialize an InventoryEvent
+     * @param type What changed
+     * @param vehicle The vehicle that changed, or null
+     * @param dealerId The dealer of the vehicle after the change, or the dealer that changed
+     * @param sourceDealerId The dealer a transferred vehicle left, or null
+     * @param rented Whether the vehicle was rented right after the change
+     */
+    public InventoryEvent(Type type, Vehicle vehicle, String dealerId, String sourceDealerId, boolean rented) {
+        this.type = type;
+        this.vehicle = vehicle;
+        this.dealerId = dealerId;
+        this.sourceDealerId = sourceDealerId;
+        this.rented = rented;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+
+    public String getDealerId() {
+        return dealerId;
+    }
+
+    public String getSourceDealerId() {
+        return sourceDealerId;
+    }
+
+    public boolean isRented() {
+        return rented;
+    }
+
+    @Override
+    public String toString() {
+        return type + (vehicle != null ? " " + vehicle.getVehicleId() : "") +
+                (sourceDealerId != null ? " from " + sourceDealerId : "") +
+                (dealerId != null ? " at " + dealerId : "");
+    }
+}
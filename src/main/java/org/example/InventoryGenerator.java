@@ -0,0 +1,334 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * The InventoryGenerator class creates synthetic inventories for scale tests and benchmarks.
+ * The same seed and settings always give the same vehicles in the same order, and vehicles are
+ * created one at a time, so files of any size are written in constant memory.
+ * Vehicles come out grouped by dealer, which is the order the Dealer/Vehicle XML feed needs.
+ */
+public class InventoryGenerator {
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;    // Buffer between the writers and the file
+    private static final long BASE_TIME = 1_740_000_000_000L;   // Fixed "now" so dates do not depend on the clock
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    // Vehicle types, the weights in typeWeights use the same order
+    private static final String[] TYPES = {"suv", "sedan", "pickup", "sports car"};
+
+    // Manufacturer and model pairs per type, chosen so the JSON reader infers the same type from the model
+    private static final String[][][] MODELS = {
+            {{"Honda", "CR-V"}, {"Ford", "Explorer"}, {"Land Rover", "Range Rover"}},
+            {{"Tesla", "Model 3"}, {"Genesis", "G70"}},
+            {{"Chevrolet", "Silverado"}, {"Toyota", "Tundra"}},
+            {{"Toyota", "Supra"}, {"Mazda", "Miata"}}
+    };
+
+    // Lowest price and price spread per type
+    private static final int[][] PRICES = {
+            {28_000, 40_000}, {24_000, 30_000}, {32_000, 35_000}, {45_000, 60_000}
+    };
+
+    private final long seed;
+    private int dealerCount = 10;                           // Number of dealers the vehicles are spread over
+    private double[] typeWeights = {0.4, 0.3, 0.2, 0.1};    // Relative share of SUV, Sedan, Pickup and SportsCar
+    private double rentalRatio = 0.1;                       // Share of vehicles that are rented
+    private double dealerSkew = 0.0;                        // Zipf exponent, 0 spreads vehicles evenly over dealers
+    private String idPrefix = "V";                          // Vehicle IDs are the prefix followed by a running number
+
+    /**
+     * Constructor that initialize a generator
+     * @param seed The random seed, the same seed gives the same inventory
+     */
+    public InventoryGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of dealers
+     * @param dealerCount Number of dealers, at least 1
+     */
+    public void setDealerCount(int dealerCount) {
+        if (dealerCount < 1) throw new IllegalArgumentException("dealerCount must be at least 1");
+        this.dealerCount = dealerCount;
+    }
+
+    /**
+     * Sets the mix of vehicle types
+     * @param suv Relative share of SUVs
+     * @param sedan Relative share of Sedans
+     * @param pickup Relative share of Pickups
+     * @param sportsCar Relative share of SportsCars
+     */
+    public void setTypeMix(double suv, double sedan, double pickup, double sportsCar) {
+        double total = suv + sedan + pickup + sportsCar;
+        if (suv < 0 || sedan < 0 || pickup < 0 || sportsCar < 0 || total <= 0) {
+            throw new IllegalArgumentException("Type shares must not be negative and must not all be 0");
+        }
+        this.typeWeights = new double[]{suv / total, sedan / total, pickup / total, sportsCar / total};
+    }
+
+    /**
+     * Sets the share of vehicles that are rented. Sports cars are never rented.
+     * @param rentalRatio Share between 0 and 1
+     */
+    public void setRentalRatio(double rentalRatio) {
+        if (rentalRatio < 0 || rentalRatio > 1) throw new IllegalArgumentException("rentalRatio must be between 0 and 1");
+        this.rentalRatio = rentalRatio;
+    }
+
+    /**
+     * Sets how unevenly vehicles are spread over dealers. Dealer n gets a share proportional
+     * to 1 / n^skew, so 0 is even and 1 gives the first dealer about as many vehicles as the
+     * next few together.
+     * @param dealerSkew Zipf exponent, 0 or more
+     */
+    public void setDealerSkew(double dealerSkew) {
+        if (dealerSkew < 0) throw new IllegalArgumentException("dealerSkew must not be negative");
+        this.dealerSkew = dealerSkew;
+    }
+
+    /**
+     * Sets the prefix of the generated vehicle IDs
+     * @param idPrefix The prefix
+     */
+    public void setIdPrefix(String idPrefix) {
+        this.idPrefix = idPrefix;
+    }
+
+    /**
+     * Creates vehicles one at a time and hands them to the consumer
+     * @param count Number of vehicles
+     * @param consumer Called once for every vehicle, in dealer order
+     */
+    public void generate(long count, Consumer<Vehicle> consumer) {
+        Random random = new Random(seed);
+        long[] dealerSizes = dealerSizes(count);
+        long index = 0;
+        for (int dealer = 0; dealer < dealerCount; dealer++) {
+            String dealerId = String.valueOf(dealer + 1);
+            for (long i = 0; i < dealerSizes[dealer]; i++) {
+                consumer.accept(createVehicle(random, index++, dealerId));
+            }
+        }
+    }
+
+    /**
+     * Writes a car_inventory JSON file that JSONFileHandler and DealershipManager can read
+     * @param count Number of vehicles
+     * @param file The file to write
+     */
+    public void writeJson(long count, File file) throws IOException {
+        JSONFileHandler jsonFileHandler = new JSONFileHandler();
+        try (JsonGenerator generator = jsonFileHandler.createGenerator(
+                new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_SIZE))) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("car_inventory");
+            IOException[] failure = new IOException[1];
+            generate(count, vehicle -> {
+                if (failure[0] != null) return;
+                try {
+                    generator.writeStartObject();
+                    jsonFileHandler.writeVehicleFields(generator, vehicle);
+                    generator.writeEndObject();
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes a Dealer/Vehicle XML feed that XMLFileHandler can import.
+     * The feed has no rental information, like the supplier feeds.
+     * @param count Number of vehicles
+     * @param file The file to write
+     */
+    public void writeXml(long count, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_SIZE)) {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance()
+                    .createXMLStreamWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try {
+                writeXml(count, writer);
+            } finally {
+                writer.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Error writing XML file: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeXml(long count, XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeCharacters("\n");
+        writer.writeStartElement("Dealers");
+        writer.writeCharacters("\n");
+
+        String[] currentDealer = {null};
+        XMLStreamException[] failure = new XMLStreamException[1];
+        generate(count, vehicle -> {
+            if (failure[0] != null) return;
+            try {
+                if (!vehicle.getDealerId().equals(currentDealer[0])) {
+                    if (currentDealer[0] != null) {
+                        writer.writeEndElement();
+                        writer.writeCharacters("\n");
+                    }
+                    currentDealer[0] = vehicle.getDealerId();
+                    writer.writeStartElement("Dealer");
+                    writer.writeAttribute("id", currentDealer[0]);
+                    writer.writeStartElement("Name");
+                    writer.writeCharacters(dealerName(currentDealer[0]));
+                    writer.writeEndElement();
+                    writer.writeCharacters("\n");
+                }
+                writeXmlVehicle(writer, vehicle);
+            } catch (XMLStreamException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+
+        if (currentDealer[0] != null) {
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+        }
+        writer.writeEndElement();
+        writer.writeEndDocument();
+    }
+
+    private void writeXmlVehicle(XMLStreamWriter writer, Vehicle vehicle) throws XMLStreamException {
+        writer.writeStartElement("Vehicle");
+        writer.writeAttribute("type", typeName(vehicle));
+        writer.writeAttribute("id", vehicle.getVehicleId());
+        writer.writeStartElement("Price");
+        writer.writeAttribute("unit", "dollars");
+        writer.writeCharacters(String.valueOf(vehicle.getPrice()));
+        writer.writeEndElement();
+        writer.writeStartElement("Make");
+        writer.writeCharacters(vehicle.getManufacturer());
+        writer.writeEndElement();
+        writer.writeStartElement("Model");
+        writer.writeCharacters(vehicle.getModel());
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+    }
+
+    /**
+     * Splits the vehicles over the dealers following the skew, largest share first.
+     * Remainders go to the first dealers so the sizes add up to count.
+     */
+    private long[] dealerSizes(long count) {
+        double[] weights = new double[dealerCount];
+        double total = 0;
+        for (int i = 0; i < dealerCount; i++) {
+            weights[i] = 1.0 / Math.pow(i + 1, dealerSkew);
+            total += weights[i];
+        }
+
+        long[] sizes = new long[dealerCount];
+        long assigned = 0;
+        for (int i = 0; i < dealerCount; i++) {
+            sizes[i] = (long) (count * weights[i] / total);
+            assigned += sizes[i];
+        }
+        for (int i = 0; assigned < count; i = (i + 1) % dealerCount) {
+            sizes[i]++;
+            assigned++;
+        }
+        return sizes;
+    }
+
+    private Vehicle createVehicle(Random random, long index, String dealerId) {
+        int type = pickType(random.nextDouble());
+        String[] model = MODELS[type][random.nextInt(MODELS[type].length)];
+
+        Vehicle vehicle;
+        switch (TYPES[type]) {
+            case "sedan":
+                vehicle = new Sedan();
+                break;
+            case "pickup":
+                vehicle = new Pickup();
+                break;
+            case "sports car":
+                vehicle = new SportsCar();
+                break;
+            default:
+                vehicle = new SUV();
+        }
+
+        vehicle.setVehicleId(idPrefix + index);
+        vehicle.setManufacturer(model[0]);
+        vehicle.setModel(model[1]);
+        vehicle.setPrice(PRICES[type][0] + random.nextInt(PRICES[type][1]) / 100 * 100);
+        vehicle.setDealerId(dealerId);
+        vehicle.setAcquisitionDate(new Date(BASE_TIME - random.nextInt(730) * DAY_MILLIS));
+        vehicle.getMetadata().put("dealer_name", dealerName(dealerId));
+
+        // Draw the rental numbers for every vehicle so the sequence does not depend on the type
+        boolean rented = random.nextDouble() < rentalRatio;
+        int daysOut = random.nextInt(14);
+        int daysLeft = 1 + random.nextInt(14);
+        if (rented && !(vehicle instanceof SportsCar)) {
+            vehicle.rent(new Date(BASE_TIME - daysOut * DAY_MILLIS), new Date(BASE_TIME + daysLeft * DAY_MILLIS));
+        }
+        return vehicle;
+    }
+
+    private int pickType(double draw) {
+        double cumulative = 0;
+        for (int i = 0; i < typeWeights.length - 1; i++) {
+            cumulative += typeWeights[i];
+            if (draw < cumulative) return i;
+        }
+        return typeWeights.length - 1;
+    }
+
+    private static String dealerName(String dealerId) {
+        return "Dealer " + dealerId;
+    }
+
+    private static String typeName(Vehicle vehicle) {
+        if (vehicle instanceof Sedan) return "sedan";
+        if (vehicle instanceof Pickup) return "pickup";
+        if (vehicle instanceof SportsCar) return "sports car";
+        return "suv";
+    }
+
+    /**
+     * Writes a synthetic inventory file from the command line
+     * Usage: InventoryGenerator json|xml count file [seed] [dealers]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: InventoryGenerator json|xml count file [seed] [dealers]");
+            return;
+        }
+        InventoryGenerator generator = new InventoryGenerator(args.length > 3 ? Long.parseLong(args[3]) : 42);
+        if (args.length > 4) {
+            generator.setDealerCount(Integer.parseInt(args[4]));
+        }
+
+        long count = Long.parseLong(args[1]);
+        File file = new File(args[2]);
+        if ("xml".equalsIgnoreCase(args[0])) {
+            generator.writeXml(count, file);
+        } else {
+            generator.writeJson(count, file);
+        }
+        System.out.println("Wrote " + count + " vehicles to " + file);
+    }
+}
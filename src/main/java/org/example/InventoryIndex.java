@@ -0,0 +1,602 @@
+package org.example;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The InventoryIndex class keeps bitmap indexes over the type, manufacturer, model, dealer ID
+ * and rental status of every vehicle of a DealershipManager, so searches on those fields don't
+ * look at every vehicle.
+ * <p>
+ * Every indexed vehicle gets a slot number. Each field keeps a dictionary of its distinct values
+ * and a BitSet of slots per value. A search checks the distinct values instead of the vehicles,
+ * ORs the bitmaps of the values that match and ANDs the results of the fields, then counts the
+ * matches per value of every field (the facets) while it collects them.
+ * <p>
+ * Vehicle IDs are nearly all distinct, so instead of a bitmap per value they are kept in a
+ * TrigramIndex, which narrows an ID search to a few candidates before they are checked.
+ * The distinct values of each field are also kept in a BKTree, so a fuzzy search compares the
+ * query with the values close to it rather than with every vehicle.
+ * <p>
+ * The index follows the manager through its inventory events. Each event makes the index look
+ * at the vehicle as it is now, so events that arrive late or out of order still leave the index
+ * matching the manager. Memory is one BitSet per distinct value, up to one bit per slot each.
+ */
+public class InventoryIndex implements InventoryListener, Closeable {
+    /**
+     * The indexed fields
+     */
+    public enum Field {
+        TYPE,           // Class name of the vehicle, like SUV
+        MANUFACTURER,
+        MODEL,
+        DEALER_ID,
+        STATUS          // RENTED or AVAILABLE
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final DealershipManager manager;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // Exclusive for changes, shared for searches
+    private final Map<String, Integer> slotsById = new HashMap<>();        // Slot of every indexed vehicle by vehicle id
+    private final Dictionary[] dictionaries = new Dictionary[FIELDS.length]; // Distinct values and their bitmaps per field
+    private TrigramIndex idTrigrams = new TrigramIndex();                   // Slots by trigram of their vehicle ID
+    private final BitSet live = new BitSet();                               // Slots that hold a vehicle
+    private Vehicle[] vehicles = new Vehicle[INITIAL_SLOTS];                // Vehicle by slot
+    private int[][] codes = new int[FIELDS.length][INITIAL_SLOTS];          // Value code of every field by slot, -1 if none
+    private int[] freeSlots = new int[64];                                  // Slots of removed vehicles, reused first
+    private int freeCount;
+    private int slotCount;                                                  // Slots handed out so far
+    private int rebuildsReading;                                            // Rebuilds reading the manager's vehicles
+    private final List<Vehicle> changedWhileReading = new ArrayList<>();    // Changed vehicles a reading rebuild may have missed
+
+    /**
+     * Constructor that initialize an InventoryIndex over the vehicles a manager has now,
+     * and keeps it up to date from the manager's inventory events
+     * @param manager The manager to index
+     */
+    public InventoryIndex(DealershipManager manager) {
+        this.manager = manager;
+        for (int i = 0; i < FIELDS.length; i++) {
+            dictionaries[i] = new Dictionary();
+        }
+        manager.addInventoryListener(this);
+        rebuild();
+    }
+
+    /**
+     * Gets the field a search type of the GUI search box looks in
+     * @param searchType ID, Manufacturer, Model, Dealer ID, Type or All Fields
+     * @return The field, or null if the search type is not indexed here
+     */
+    public static Field fieldForSearchType(String searchType) {
+        switch (searchType) {
+            case "Manufacturer":
+                return Field.MANUFACTURER;
+            case "Model":
+                return Field.MODEL;
+            case "Dealer ID":
+                return Field.DEALER_ID;
+            case "Type":
+                return Field.TYPE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Checks whether a search of the GUI search box is answered from the index without looking
+     * at every vehicle. ID and All Fields searches need at least three characters for that.
+     * Price and Acquired searches are answered by the manager, see VehicleSearch.findInRange.
+     * @param searchType ID, Manufacturer, Model, Dealer ID, Type, All Fields or VehicleSearch.FUZZY
+     * @param query The text to look for
+     * @return true if search(searchType, query) doesn't check every vehicle
+     */
+    public static boolean isNarrowed(String searchType, String query) {
+        if (fieldForSearchType(searchType) != null || searchType.equals(VehicleSearch.FUZZY)) return true;
+        return (searchType.equals("ID") || searchType.equals("All Fields")) && TrigramIndex.canNarrow(query);
+    }
+
+    @Override
+    public void inventoryChanged(InventoryEvent event) {
+        if (event.getType() == InventoryEvent.Type.RELOADED) {
+            rebuild();
+        } else if (event.getVehicle() != null) {
+            lock.writeLock().lock();
+            try {
+                sync(event.getVehicle());
+                if (rebuildsReading > 0) {
+                    changedWhileReading.add(event.getVehicle());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Indexes every vehicle of the manager again.
+     * The vehicles are read before the index is locked: the manager publishes events while it
+     * holds dealership locks, so reading them with the index locked could deadlock with an event.
+     * Vehicles changed while they are read are synced again once the new index is built.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        rebuildsReading++;
+        lock.writeLock().unlock();
+
+        List<Vehicle> fleet;
+        try {
+            fleet = manager.getVehiclesForDisplay();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            if (--rebuildsReading == 0) changedWhileReading.clear();
+            lock.writeLock().unlock();
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            live.clear();
+            Arrays.fill(vehicles, null);
+            freeCount = 0;
+            slotCount = 0;
+            for (int i = 0; i < FIELDS.length; i++) {
+                dictionaries[i] = new Dictionary();
+            }
+            idTrigrams = new TrigramIndex();
+
+            for (Vehicle vehicle : fleet) {
+                sync(vehicle);
+            }
+            // Each sync looks at the vehicle as it is now, so this catches up with every change
+            for (Vehicle vehicle : changedWhileReading) {
+                sync(vehicle);
+            }
+        } finally {
+            if (--rebuildsReading == 0) changedWhileReading.clear();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the vehicles whose field contains the query, ignoring case, like the GUI search box
+     * @param field The field to look in
+     * @param query The text to look for
+     * @return The matches with their facet counts
+     */
+    public Result search(Field field, String query) {
+        return search(Map.of(field, query));
+    }
+
+    /**
+     * Finds the vehicles that match a search of the GUI search box, with the same results as
+     * VehicleSearch.matchesSearchCriteria
+     * @param searchType ID, Manufacturer, Model, Dealer ID, Type, All Fields or VehicleSearch.FUZZY
+     * @param query The text to look for
+     * @return The matches with their facet counts
+     */
+    public Result search(String searchType, String query) {
+        Field field = fieldForSearchType(searchType);
+        if (field != null) {
+            return search(field, query);
+        }
+
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        if (searchType.equals(VehicleSearch.FUZZY)) {
+            return searchSimilar(lowerQuery, VehicleSearch.maxEditDistance(lowerQuery));
+        }
+        lock.readLock().lock();
+        try {
+            BitSet matches = matchingIds(lowerQuery);
+            if (!searchType.equals("ID")) {
+                // All Fields looks in every field but the rental status
+                for (int i = 0; i < FIELDS.length; i++) {
+                    if (FIELDS[i] != Field.STATUS) {
+                        matches.or(dictionaries[i].matching(lowerQuery));
+                    }
+                }
+            }
+            return collect(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the vehicles that match every criterion. A criterion matches if the field contains
+     * its text, ignoring case; STATUS takes RENTED or AVAILABLE.
+     * @param criteria The text to look for by field, an empty map matches every vehicle
+     * @return The matches with their facet counts
+     */
+    public Result search(Map<Field, String> criteria) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) live.clone();
+            for (Map.Entry<Field, String> criterion : criteria.entrySet()) {
+                if (matches.isEmpty()) break;
+                String query = criterion.getValue().toLowerCase(Locale.ROOT);
+                matches.and(dictionaries[criterion.getKey().ordinal()].matching(query));
+            }
+            return collect(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the vehicles whose manufacturer or model is within an edit distance of the query,
+     * ignoring case, to tolerate typos like "Toyta" or "Range Rovr"
+     * @param query The text to look for
+     * @param maxDistance The most characters inserted, deleted or replaced to turn a value into the query
+     * @return The matches with their facet counts, the vehicles with the closest values first
+     */
+    public Result searchSimilar(String query, int maxDistance) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            // Slots by the distance of their closest value
+            BitSet[] ranks = new BitSet[maxDistance + 1];
+            for (int distance = 0; distance <= maxDistance; distance++) {
+                ranks[distance] = new BitSet();
+            }
+            for (Field field : new Field[] {Field.MANUFACTURER, Field.MODEL}) {
+                Dictionary dictionary = dictionaries[field.ordinal()];
+                for (BKTree.Match match : dictionary.similar.search(lowerQuery, maxDistance)) {
+                    for (int code : match.getIds()) {
+                        ranks[match.getDistance()].or(dictionary.bitmaps.get(code));
+                    }
+                }
+            }
+            return collect(ranks);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the distinct values of a field within an edit distance of the query, ignoring case
+     * @param field The field
+     * @param query The text to look for
+     * @param maxDistance The most characters inserted, deleted or replaced to turn a value into the query
+     * @return The lowercase values that match, closest first
+     */
+    public List<BKTree.Match> findSimilarValues(Field field, String query, int maxDistance) {
+        lock.readLock().lock();
+        try {
+            return dictionaries[field.ordinal()].similar.search(query.toLowerCase(Locale.ROOT), maxDistance);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the vehicles that are free for every day of a period, with the same results as
+     * DealershipManager.findAvailableVehicles. The DEALER_ID and TYPE bitmaps pick the
+     * candidates, so only the bookings of vehicles of that dealer and type are searched.
+     * @param dealerId The dealer ID, or null for every dealer
+     * @param vehicleType The class name of the vehicles, like SUV, ignoring case, or null for every type
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period, not before the first
+     * @return The free vehicles in slot order
+     * @throws IllegalArgumentException if a date is missing or the period ends before it starts
+     */
+    public List<Vehicle> findAvailable(String dealerId, String vehicleType, Date startDate, Date endDate) {
+        DealershipManager.checkPeriod(startDate, endDate);
+        long start = startDate.getTime();
+        long end = endDate.getTime();
+        lock.readLock().lock();
+        try {
+            BitSet candidates = (BitSet) live.clone();
+            if (dealerId != null) {
+                candidates.and(dictionaries[Field.DEALER_ID.ordinal()].equalTo(dealerId, false));
+            }
+            if (vehicleType != null) {
+                candidates.and(dictionaries[Field.TYPE.ordinal()].equalTo(vehicleType, true));
+            }
+
+            List<Vehicle> available = new ArrayList<>();
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (vehicles[slot].getRentalState().isFreeBetween(start, end)) {
+                    available.add(vehicles[slot]);
+                }
+            }
+            return available;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the vehicles per value of a field from the sizes of its bitmaps, without collecting them
+     * @param field The field
+     * @return The vehicle count by value, in value order, values without vehicles are left out
+     */
+    public Map<String, Integer> getCounts(Field field) {
+        lock.readLock().lock();
+        try {
+            Dictionary dictionary = dictionaries[field.ordinal()];
+            Map<String, Integer> counts = new TreeMap<>();
+            for (int code = 0; code < dictionary.values.size(); code++) {
+                int count = dictionary.bitmaps.get(code).cardinality();
+                if (count > 0) {
+                    counts.put(dictionary.values.get(code), count);
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed vehicles
+     * @return The number of vehicles
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops following the manager
+     */
+    @Override
+    public void close() {
+        manager.removeInventoryListener(this);
+    }
+
+    /**
+     * Finds the slots whose vehicle ID contains the query, checking only the candidates of the
+     * trigram index when the query is long enough. The caller holds the read lock.
+     */
+    private BitSet matchingIds(String lowerQuery) {
+        BitSet matches = new BitSet();
+        if (TrigramIndex.canNarrow(lowerQuery)) {
+            for (int slot : idTrigrams.candidates(lowerQuery)) {
+                if (vehicles[slot].getVehicleId().toLowerCase(Locale.ROOT).contains(lowerQuery)) {
+                    matches.set(slot);
+                }
+            }
+        } else {
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                if (vehicles[slot].getVehicleId().toLowerCase(Locale.ROOT).contains(lowerQuery)) {
+                    matches.set(slot);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Collects the vehicles of the matching slots and counts them per value of every field.
+     * Slots in more than one rank are collected with the first. The caller holds the read lock.
+     * @param ranks The matching slots, best matches first
+     */
+    private Result collect(BitSet... ranks) {
+        BitSet collected = new BitSet();
+        List<Vehicle> found = new ArrayList<>();
+        int[][] counts = new int[FIELDS.length][];
+        for (int i = 0; i < FIELDS.length; i++) {
+            counts[i] = new int[dictionaries[i].values.size()];
+        }
+
+        for (BitSet matches : ranks) {
+            matches.andNot(collected);
+            collected.or(matches);
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                found.add(vehicles[slot]);
+                for (int i = 0; i < FIELDS.length; i++) {
+                    counts[i][codes[i][slot]]++;
+                }
+            }
+        }
+
+        Map<Field, Map<String, Integer>> facets = new EnumMap<>(Field.class);
+        for (int i = 0; i < FIELDS.length; i++) {
+            Map<String, Integer> fieldCounts = new TreeMap<>();
+            for (int code = 0; code < counts[i].length; code++) {
+                if (counts[i][code] > 0) {
+                    fieldCounts.put(dictionaries[i].values.get(code), counts[i][code]);
+                }
+            }
+            facets.put(FIELDS[i], fieldCounts);
+        }
+        return new Result(found, facets);
+    }
+
+    /**
+     * Brings the index entry of one vehicle up to date with the manager: indexes it if it is in
+     * the fleet, moves its bits if its dealer or rental status changed, and unindexes it if it
+     * left the fleet. The caller holds the write lock.
+     */
+    private void sync(Vehicle vehicle) {
+        String vehicleId = vehicle.getVehicleId();
+        Integer slot = slotsById.get(vehicleId);
+        boolean present = manager.findVehicle(vehicleId) == vehicle;
+
+        if (slot != null && vehicles[slot] != vehicle) {
+            // The slot belongs to another vehicle with the same ID, it stays unless this one replaced it
+            if (!present) return;
+            release(slot);
+            slot = null;
+        }
+        if (!present) {
+            if (slot != null) {
+                release(slot);
+            }
+            return;
+        }
+
+        if (slot == null) {
+            slot = allocate(vehicle);
+        }
+        for (int i = 0; i < FIELDS.length; i++) {
+            Dictionary dictionary = dictionaries[i];
+            int code = dictionary.codeOf(valueOf(FIELDS[i], vehicle));
+            int oldCode = codes[i][slot];
+            if (code != oldCode) {
+                if (oldCode >= 0) {
+                    dictionary.bitmaps.get(oldCode).clear(slot);
+                }
+                dictionary.bitmaps.get(code).set(slot);
+                codes[i][slot] = code;
+            }
+        }
+    }
+
+    private int allocate(Vehicle vehicle) {
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : slotCount++;
+        if (slot == vehicles.length) {
+            int capacity = vehicles.length * 2;
+            vehicles = Arrays.copyOf(vehicles, capacity);
+            for (int i = 0; i < FIELDS.length; i++) {
+                codes[i] = Arrays.copyOf(codes[i], capacity);
+            }
+        }
+        vehicles[slot] = vehicle;
+        for (int i = 0; i < FIELDS.length; i++) {
+            codes[i][slot] = -1;
+        }
+        slotsById.put(vehicle.getVehicleId(), slot);
+        idTrigrams.add(vehicle.getVehicleId(), slot);
+        live.set(slot);
+        return slot;
+    }
+
+    private void release(int slot) {
+        for (int i = 0; i < FIELDS.length; i++) {
+            dictionaries[i].bitmaps.get(codes[i][slot]).clear(slot);
+            codes[i][slot] = -1;
+        }
+        slotsById.remove(vehicles[slot].getVehicleId(), slot);
+        idTrigrams.remove(vehicles[slot].getVehicleId(), slot);
+        vehicles[slot] = null;
+        live.clear(slot);
+
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private static String valueOf(Field field, Vehicle vehicle) {
+        String value;
+        switch (field) {
+            case TYPE:
+                value = vehicle.getClass().getSimpleName();
+                break;
+            case MANUFACTURER:
+                value = vehicle.getManufacturer();
+                break;
+            case MODEL:
+                value = vehicle.getModel();
+                break;
+            case DEALER_ID:
+                value = vehicle.getDealerId();
+                break;
+            default:
+                value = vehicle.isRented() ? "RENTED" : "AVAILABLE";
+                break;
+        }
+        return value == null ? "" : value;
+    }
+
+    /**
+     * The distinct values of one field, each with a code and a bitmap of the slots that have it.
+     * Values are never removed, a value without vehicles keeps an empty bitmap.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();          // Value by code
+        private final List<String> lowerValues = new ArrayList<>();     // Lowercase value by code, for searching
+        private final List<BitSet> bitmaps = new ArrayList<>();         // Slots by code
+        private final BKTree similar = new BKTree();                    // Codes by lowercase value, for fuzzy searches
+
+        int codeOf(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+                lowerValues.add(value.toLowerCase(Locale.ROOT));
+                bitmaps.add(new BitSet());
+                similar.add(lowerValues.get(code), code);
+            }
+            return code;
+        }
+
+        /**
+         * ORs the bitmaps of the values that contain the query
+         * @param query Lowercase text
+         * @return A new bitmap of the matching slots
+         */
+        BitSet matching(String query) {
+            BitSet slots = new BitSet();
+            for (int code = 0; code < values.size(); code++) {
+                if (lowerValues.get(code).contains(query)) {
+                    slots.or(bitmaps.get(code));
+                }
+            }
+            return slots;
+        }
+
+        /**
+         * Gets the slots of the values equal to a text
+         * @param text The value to look for
+         * @param ignoreCase true to match the value in any case
+         * @return A new bitmap of the matching slots
+         */
+        BitSet equalTo(String text, boolean ignoreCase) {
+            if (!ignoreCase) {
+                Integer code = codes.get(text);
+                return code == null ? new BitSet() : (BitSet) bitmaps.get(code).clone();
+            }
+            String lowerText = text.toLowerCase(Locale.ROOT);
+            BitSet slots = new BitSet();
+            for (int code = 0; code < values.size(); code++) {
+                if (lowerValues.get(code).equals(lowerText)) {
+                    slots.or(bitmaps.get(code));
+                }
+            }
+            return slots;
+        }
+    }
+
+    /**
+     * The vehicles found by a search and how many of them have each value of every field
+     */
+    public static final class Result {
+        private final List<Vehicle> vehicles;                      // In slot order, closest first for searchSimilar
+        private final Map<Field, Map<String, Integer>> facets;     // Match count per value, by field
+
+        Result(List<Vehicle> vehicles, Map<Field, Map<String, Integer>> facets) {
+            this.vehicles = vehicles;
+            this.facets = facets;
+        }
+
+        public List<Vehicle> getVehicles() {
+            return vehicles;
+        }
+
+        public int getCount() {
+            return vehicles.size();
+        }
+
+        /**
+         * Gets how many matches have each value of a field
+         * @param field The field
+         * @return The match count by value, in value order, values without matches are left out
+         */
+        public Map<String, Integer> getFacetCounts(Field field) {
+            return facets.get(field);
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The InventoryJournal class is an append-only write-ahead log of inventory mutations.
+ * Every add, remove, rent, return, booking and transfer is written as one compact JSON line, so
+ * the cost of persisting a change depends on the size of the change and not on the size of the fleet.
+ * On startup the journal is replayed over the last inventory snapshot.
+ * Appends from several threads are written one record at a time in the order they arrive.
+ * Inside a batch (see beginBatch) records are not flushed one by one; the whole batch is
+ * flushed and forced to disk once when it is committed.
+ */
+public class InventoryJournal implements Closeable {
+    public static final String OP_ADD = "add";
+    public static final String OP_REMOVE = "remove";
+    public static final String OP_RENT = "rent";
+    public static final String OP_RETURN = "return";
+    public static final String OP_TRANSFER = "transfer";
+    public static final String OP_RESERVE = "reserve";
+    public static final String OP_CANCEL = "cancel";
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final File journalFile;                                     // File the records are appended to
+    private final ObjectMapper objectMapper = new ObjectMapper();       // Reads records during replay
+    private final JSONFileHandler jsonFileHandler = new JSONFileHandler(); // Writes vehicle fields into records
+    private JsonGenerator generator;                                    // Lazily opened on the append stream
+    private FileOutputStream fileStream;                                // The stream under generator, forced on commit
+    private int batchDepth;                                             // Open batches, records are not flushed while > 0
+    private IOException batchFailure;                                   // First append that failed in the open batch
+    private long nextSequence = 1;                                      // Sequence number of the next record
+    private long recordCount;                                           // Records written since the last compaction
+    private long firstRecordTime;                                       // When the oldest uncompacted record was written
+
+    /**
+     * Constructor that initialize a journal
+     * @param journalFile The file the journal records are appended to
+     */
+    public InventoryJournal(File journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * Gets the journal file that belongs to an inventory snapshot file
+     * @param inventoryFile The inventory snapshot file
+     * @return The journal file stored next to the snapshot
+     */
+    public static File journalFileFor(File inventoryFile) {
+        return new File(inventoryFile.getPath() + ".journal");
+    }
+
+    /**
+     * Gets the journal file
+     * @return journalFile
+     */
+    public File getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * Gets the file that holds records while they are being folded into a snapshot
+     * @return The compacting file stored next to the journal
+     */
+    public File getCompactingFile() {
+        return new File(journalFile.getPath() + ".compacting");
+    }
+
+    /**
+     * Gets the sequence number of the last record written
+     * @return The last sequence number, or 0 if nothing was written yet
+     */
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Makes sure new records are numbered after a sequence number that is already in a snapshot
+     * @param sequence The last sequence number folded into the snapshot
+     */
+    public synchronized void advanceSequence(long sequence) {
+        nextSequence = Math.max(nextSequence, sequence + 1);
+    }
+
+    /**
+     * Gets the number of records written since the last compaction
+     * @return recordCount
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the number of bytes written since the last compaction
+     * @return The size of the journal file
+     */
+    public long getByteCount() {
+        return journalFile.length();
+    }
+
+    /**
+     * Gets the age of the oldest record written since the last compaction
+     * @return The age in milliseconds, or 0 if there are no records
+     */
+    public synchronized long getAgeMillis() {
+        return recordCount == 0 ? 0 : System.currentTimeMillis() - firstRecordTime;
+    }
+
+    /**
+     * Records that a vehicle was added
+     * @param vehicle The vehicle that was added
+     */
+    public synchronized void appendAdd(Vehicle vehicle) throws IOException {
+        JsonGenerator record = startRecord(OP_ADD);
+        jsonFileHandler.writeVehicleFields(record, vehicle);
+        endRecord();
+        flushUnlessBatching();
+    }
+
+    /**
+     * Records a batch of added vehicles with a single flush
+     * @param vehicles The vehicles that were added
+     */
+    public synchronized void appendAdds(List<Vehicle> vehicles) throws IOException {
+        for (Vehicle vehicle : vehicles) {
+            JsonGenerator record = startRecord(OP_ADD);
+            jsonFileHandler.writeVehicleFields(record, vehicle);
+            endRecord();
+        }
+        flushUnlessBatching();
+    }
+
+    /**
+     * Records that a vehicle was removed
+     * @param dealerId The dealer the vehicle was removed from
+     * @param vehicleId The id of the removed vehicle
+     */
+    public synchronized void appendRemove(String dealerId, String vehicleId) throws IOException {
+        JsonGenerator record = startRecord(OP_REMOVE);
+        record.writeStringField("dealership_id", dealerId);
+        record.writeStringField("vehicle_id", vehicleId);
+        endRecord();
+        flushUnlessBatching();
+    }
+
+    /**
+     * Records a batch of removed vehicles with a single flush
+     * @param vehicles The vehicles that were removed
+     */
+    public synchronized void appendRemoves(List<Vehicle> vehicles) throws IOException {
+        for (Vehicle vehicle : vehicles) {
+            JsonGenerator record = startRecord(OP_REMOVE);
+            record.writeStringField("dealership_id", vehicle.getDealerId());
+            record.writeStringField("vehicle_id", vehicle.getVehicleId());
+            endRecord();
+        }
+        flushUnlessBatching();
+    }
+
+    /**
+     * Records that a vehicle was rented
+     * @param dealerId The dealer of the vehicle
+     * @param vehicleId The id of the rented vehicle
+     * @param state The rental state the vehicle moved to
+     */
+    public synchronized void appendRent(String dealerId, String vehicleId, RentalState state) throws IOException {
+        JsonGenerator record = startRecord(OP_RENT);
+        record.writeStringField("dealership_id", dealerId);
+        record.writeStringField("vehicle_id", vehicleId);
+        record.writeNumberField("rental_start_date", state.getStartDate().getTime());
+        record.writeNumberField("rental_end_date", state.getEndDate().getTime());
+        record.writeNumberField("rental_version", state.getVersion());
+        jsonFileHandler.writeReservations(record, state.getReservations());
+        endRecord();
+        flushUnlessBatching();
+    }
+
+    /**
+     * Records that a rented vehicle was returned
+     * @param dealerId The dealer of the vehicle
+     * @param vehicleId The id of the returned vehicle
+     * @param state The rental state the vehicle moved to
+     */
+    public synchronized void appendReturn(String dealerId, String vehicleId, RentalState state) throws IOException {
+        JsonGenerator record = startRecord(OP_RETURN);
+        record.writeStringField("dealership_id", dealerId);
+        record.writeStringField("vehicle_id", vehicleId);
+        record.writeNumberField("rental_version", state.getVersion());
+        jsonFileHandler.writeReservations(record, state.getReservations());
+        endRecord();
+        flushUnlessBatching();
+    }
+
+    /**
+     * Records that a vehicle was booked or a booking was cancelled. The record holds the whole
+     * rental state, so replay can keep the newest state whatever order the records are in.
+     * @param op OP_RESERVE or OP_CANCEL
+     * @param dealerId The dealer of the vehicle
+     * @param vehicleId The id of the vehicle
+     * @param state The rental state the vehicle moved to
+     */
+    public synchronized void appendReservation(String op, String dealerId, String vehicleId, RentalState state) throws IOException {
+        JsonGenerator record = startRecord(op);
+        record.writeStringField("dealership_id", dealerId);
+        record.writeStringField("vehicle_id", vehicleId);
+        record.writeBooleanField("is_rented", state.isRented());
+        if (state.getStartDate() != null) {
+            record.writeNumberField("rental_start_date", state.getStartDate().getTime());
+        }
+        if (state.getEndDate() != null) {
+            record.writeNumberField("rental_end_date", state.getEndDate().getTime());
+        }
+        record.writeNumberField("rental_version", state.getVersion());
+        jsonFileHandler.writeReservations(record, state.getReservations());
+        endRecord();
+        flushUnlessBatching();
+    }
+
+    /**
+     * Records that a vehicle was transferred between dealerships
+     * @param sourceDealerId The dealer the vehicle left
+     * @param targetDealerId The dealer the vehicle moved to
+     * @param vehicleId The id of the transferred vehicle
+     */
+    public synchronized void appendTransfer(String sourceDealerId, String targetDealerId, String vehicleId) throws IOException {
+        JsonGenerator record = startRecord(OP_TRANSFER);
+        record.writeStringField("source_dealership_id", sourceDealerId);
+        record.writeStringField("dealership_id", targetDealerId);
+        record.writeStringField("vehicle_id", vehicleId);
+        endRecord();
+        flushUnlessBatching();
+    }
+
+    /**
+     * Starts a batch, records appended until the matching commitBatch are not flushed one by one
+     */
+    public synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Ends a batch. When the outermost batch ends, its records are flushed and forced to disk.
+     * @throws IOException if they could not be forced to disk, or an append in the batch failed
+     */
+    public synchronized void commitBatch() throws IOException {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch to commit");
+        }
+        batchDepth--;
+        if (batchDepth == 0) {
+            IOException failure = batchFailure;
+            batchFailure = null;
+            sync();
+            if (failure != null) {
+                throw new IOException("A record of the batch was not written", failure);
+            }
+        }
+    }
+
+    /**
+     * Marks the open batch as failed because one of its records could not be appended, so
+     * committing it does not report the batch as durable. Does nothing outside a batch.
+     * @param failure Why the record could not be appended
+     */
+    public synchronized void failBatch(IOException failure) {
+        if (batchDepth > 0 && batchFailure == null) {
+            batchFailure = failure;
+        }
+    }
+
+    /**
+     * Flushes the records written so far and forces them to disk
+     */
+    public synchronized void sync() throws IOException {
+        if (generator == null) return;
+        generator.flush();
+        fileStream.getChannel().force(false);
+    }
+
+    /**
+     * Replays every complete record in the order they were written, starting with records left
+     * in the compacting file by an unfinished compaction.
+     * A torn last line (for example after a crash in the middle of a write) ends the replay of that
+     * file and is cut off, so the next record starts on a line of its own.
+     * @param afterSequence Records up to and including this sequence number are already in the snapshot
+     * @param handler Called once for every record that is not in the snapshot
+     * @return The number of records replayed
+     */
+    public synchronized int replay(long afterSequence, Consumer<JsonNode> handler) {
+        advanceSequence(afterSequence);
+        int count = replayFile(getCompactingFile(), afterSequence, handler);
+        count += replayFile(journalFile, afterSequence, handler);
+
+        // Records still on disk count towards the next compaction
+        recordCount = count;
+        firstRecordTime = System.currentTimeMillis();
+        return count;
+    }
+
+    private int replayFile(File file, long afterSequence, Consumer<JsonNode> handler) {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        int count = 0;
+        long validLength = 0;           // Bytes up to the line break of the last complete record
+        boolean torn = false;
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = 0;
+            int read;
+            reading:
+            while ((read = in.read(buffer)) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') continue;
+
+                    line.write(buffer, start, i - start);
+                    start = i + 1;
+                    byte[] bytes = line.toByteArray();
+                    line.reset();
+
+                    if (!isBlank(bytes)) {
+                        JsonNode record;
+                        try {
+                            record = objectMapper.readTree(bytes);
+                        } catch (IOException e) {
+                            System.err.println("Stopping journal replay at unreadable record: " + e.getMessage());
+                            torn = true;
+                            break reading;
+                        }
+
+                        long sequence = record.path("seq").asLong();
+                        if (sequence > afterSequence) {
+                            advanceSequence(sequence);
+                            handler.accept(record);
+                            count++;
+                        }
+                    }
+                    validLength = position + i + 1;
+                }
+                line.write(buffer, start, read - start);
+                position += read;
+            }
+            // A record is only complete with its line break, anything after the last one was never synced
+            torn |= line.size() > 0;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (torn) {
+            truncate(file, validLength);
+        }
+        return count;
+    }
+
+    private static boolean isBlank(byte[] bytes) {
+        for (byte b : bytes) {
+            if (!Character.isWhitespace(b)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cuts a journal file back to the end of its last complete record, so records appended later
+     * are not glued onto a torn one and lost on the next replay
+     */
+    private static void truncate(File file, long length) {
+        System.err.println("Cutting torn journal record off " + file.getName() + " at byte " + length);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Moves the current records aside so a snapshot can be written while new records keep
+     * going to an empty journal. If an earlier compaction did not finish, the records are
+     * added to the end of its compacting file instead.
+     */
+    public synchronized void rotate() throws IOException {
+        sync();
+        close();
+        File compactingFile = getCompactingFile();
+        if (journalFile.exists()) {
+            if (compactingFile.exists()) {
+                try (OutputStream target = new FileOutputStream(compactingFile, true)) {
+                    Files.copy(journalFile.toPath(), target);
+                }
+                Files.delete(journalFile.toPath());
+            } else {
+                Files.move(journalFile.toPath(), compactingFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        recordCount = 0;
+    }
+
+    /**
+     * Deletes the compacting file once its records are part of a snapshot on disk
+     */
+    public void completeRotation() throws IOException {
+        Files.deleteIfExists(getCompactingFile().toPath());
+    }
+
+    /**
+     * Closes the append stream, it is reopened on the next append
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (generator != null) {
+            generator.close();
+            generator = null;
+            fileStream = null;
+        }
+    }
+
+    /**
+     * Opens a new record object on its own line, numbered with the next sequence number
+     */
+    private JsonGenerator startRecord(String op) throws IOException {
+        if (generator == null) {
+            fileStream = new FileOutputStream(journalFile, true);
+            generator = jsonFileHandler.createGenerator(new BufferedOutputStream(fileStream));
+            // Records are separated by the line break written in endRecord
+            generator.setRootValueSeparator(null);
+        }
+        generator.writeStartObject();
+        generator.writeNumberField("seq", nextSequence++);
+        generator.writeStringField("op", op);
+        return generator;
+    }
+
+    private void flushUnlessBatching() throws IOException {
+        if (batchDepth == 0) {
+            generator.flush();
+        }
+    }
+
+    private void endRecord() throws IOException {
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+
+        if (recordCount == 0) {
+            firstRecordTime = System.currentTimeMillis();
+        }
+        recordCount++;
+    }
+}
@@ -0,0 +1,19 @@
+package org.example;
+
+/**
+ * The InventoryListener interface is told about every change to the inventory,
+ * see DealershipManager.addInventoryListener.
+ * <p>
+ * Listeners are called on the thread that made the change while the dealerships it touched are
+ * still locked, so the events of one dealership arrive in the order they happened. A listener
+ * must return quickly and must not change the inventory itself; a GUI should queue the event
+ * and apply it on its own thread.
+ */
+@FunctionalInterface
+public interface InventoryListener {
+    /**
+     * Called after a change is made and journaled
+     * @param event The change
+     */
+    void inventoryChanged(InventoryEvent event);
+}
@@ -0,0 +1,475 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The InventoryServer class exposes a DealershipManager as JSON over HTTP, for running the
+ * inventory without the GUI. Every request runs on its own virtual thread when the JVM has
+ * them and on a pooled thread otherwise. Changes go through an InventoryCommandPipeline, so a
+ * change is only answered once it is durable, and concurrent requests share journal fsyncs.
+ * <p>
+ * Connections are kept alive between requests. Requests pipelined on one connection are
+ * answered one after another in the order they were sent.
+ * <pre>
+ * GET    /vehicles?type=Model&amp;q=civic            search, type as in the GUI search box
+ * GET    /vehicles?type=Similar+Make/Model&amp;q=toyta
+ *                                                 manufacturers and models a few typos away, closest first
+ * GET    /vehicles?type=Price&amp;q=20000-30000
+ *                                                 price range, cheapest first; type=Acquired takes MM/dd/yyyy dates
+ * GET    /vehicles?manufacturer=honda&amp;status=rented
+ *                                                 every field must contain its text, with facet counts
+ * POST   /vehicles                                add, body is a car_inventory record
+ * DELETE /vehicles/{id}                           remove
+ * POST   /vehicles/{id}/rent                      body {"start_date":"MM/dd/yyyy","end_date":"MM/dd/yyyy"}
+ * POST   /vehicles/{id}/return
+ * POST   /vehicles/{id}/reserve                   book a later period, body as for rent
+ * POST   /vehicles/{id}/cancel                    cancel a booking, body as for rent
+ * GET    /availability?start_date=06/01/2026&amp;end_date=06/07/2026[&amp;dealer_id=485][&amp;vehicle_type=SUV]
+ *                                                 vehicles free on every day of the period
+ * POST   /vehicles/{id}/transfer                  body {"dealership_id":"target"}
+ * GET    /export                                  the whole inventory in the inventory file format
+ * </pre>
+ * Rent, return, reserve, cancel and transfer take an optional "dealership_id" (the source dealer for a
+ * transfer, "source_dealership_id") and otherwise use the dealer that has the vehicle now.
+ * <p>
+ * Searches on vehicle_type, manufacturer, model, dealer_id and status, fuzzy searches, and ID
+ * and All Fields searches of at least three characters, are answered from an InventoryIndex.
+ * So is /availability, which only searches the bookings of the vehicles of the dealer and type.
+ * Price and Acquired searches are answered from the manager's sorted indexes, in their order.
+ * Field searches add a "facets" object with the match count per value of each of those fields.
+ */
+public class InventoryServer implements Closeable {
+    private static final int DEFAULT_PORT = 8080;
+    private static final String DEFAULT_INVENTORY_PATH = "src/main/resources/inventory.json";
+
+    private final DealershipManager manager;
+    private final InventoryCommandPipeline pipeline;                    // Applies and journals the changes
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;                      // Runs one request per thread
+    private final ObjectMapper objectMapper = new ObjectMapper();       // Reads request bodies
+    private final JSONFileHandler jsonFileHandler = new JSONFileHandler(); // Writes vehicles into responses
+    private final InventoryIndex index;                                 // Answers searches on indexed fields
+
+    /**
+     * Constructor that initialize an InventoryServer, it does not accept requests until start is called
+     * @param manager The manager the requests read and change
+     * @param pipeline The started pipeline that changes are submitted to
+     * @param port The port to listen on, 0 for any free port
+     */
+    public InventoryServer(DealershipManager manager, InventoryCommandPipeline pipeline, int port) throws IOException {
+        this.manager = manager;
+        this.pipeline = pipeline;
+        this.index = new InventoryIndex(manager);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.requestExecutor = newRequestExecutor();
+        server.setExecutor(requestExecutor);
+        server.createContext("/vehicles", this::handleVehicles);
+        server.createContext("/export", this::handleExport);
+        server.createContext("/availability", this::handleAvailability);
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on
+     * @return The port, useful when the server was created with port 0
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and waits up to a second for running requests to finish
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        requestExecutor.shutdown();
+        index.close();
+    }
+
+    /**
+     * Runs the server without the GUI until the process is stopped
+     * @param args [port] [inventory file]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        File inventoryFile = new File(args.length > 1 ? args[1] : DEFAULT_INVENTORY_PATH);
+
+        DealershipManager manager = new DealershipManager();
+        manager.readInventoryFile(inventoryFile);
+        manager.startCompaction(inventoryFile, CompactionPolicy.defaults());
+
+        InventoryCommandPipeline pipeline = new InventoryCommandPipeline(manager, inventoryFile);
+        pipeline.start();
+        InventoryServer server = new InventoryServer(manager, pipeline, port);
+        server.start();
+        System.out.println("Inventory server listening on port " + server.getPort());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            pipeline.close();
+            manager.stopCompaction();
+            manager.closeJournal();
+        }, "inventory-server-shutdown"));
+    }
+
+    /**
+     * Creates an executor with one virtual thread per request. Virtual threads only exist from
+     * Java 21, so they are looked up at runtime; older JVMs get a pool that grows with the load.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "inventory-http-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handleVehicles(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            // The body is always read to the end so the connection can be kept alive
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            try {
+                routeVehicles(exchange, body);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            }
+        }
+    }
+
+    private void routeVehicles(HttpExchange exchange, byte[] body) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+
+        // path[0] is empty and path[1] is "vehicles"
+        if (path.length == 2) {
+            if (method.equals("GET")) {
+                search(exchange);
+            } else if (method.equals("POST")) {
+                add(exchange, body);
+            } else {
+                sendError(exchange, 405, "Method not allowed");
+            }
+        } else if (path.length == 3 && method.equals("DELETE")) {
+            remove(exchange, path[2]);
+        } else if (path.length == 4 && method.equals("POST")) {
+            JsonNode request = readBody(body);
+            switch (path[3]) {
+                case "rent":
+                    rent(exchange, path[2], request);
+                    break;
+                case "return":
+                    returnVehicle(exchange, path[2], request);
+                    break;
+                case "reserve":
+                case "cancel":
+                    reserve(exchange, path[2], request, path[3].equals("reserve"));
+                    break;
+                case "transfer":
+                    transfer(exchange, path[2], request);
+                    break;
+                default:
+                    sendError(exchange, 404, "Unknown action: " + path[3]);
+            }
+        } else {
+            sendError(exchange, 404, "Unknown path");
+        }
+    }
+
+    private void handleExport(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            sendVehicles(exchange, manager.getVehiclesForDisplay(), null, null, null);
+        }
+    }
+
+    private void handleAvailability(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            try {
+                Date startDate = parseDate(query, "start_date");
+                Date endDate = parseDate(query, "end_date");
+                sendVehicles(exchange, index.findAvailable(query.get("dealer_id"), query.get("vehicle_type"),
+                        startDate, endDate), null, null, null);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            }
+        }
+    }
+
+    private static Date parseDate(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        try {
+            return new SimpleDateFormat("MM/dd/yyyy").parse(value);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Not a MM/dd/yyyy date: " + value);
+        }
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        // Field searches are intersections of index bitmaps
+        Map<InventoryIndex.Field, String> criteria = new EnumMap<>(InventoryIndex.Field.class);
+        for (InventoryIndex.Field field : InventoryIndex.Field.values()) {
+            String value = query.get(parameterName(field));
+            if (value != null) {
+                criteria.put(field, value);
+            }
+        }
+        if (!criteria.isEmpty()) {
+            InventoryIndex.Result result = index.search(criteria);
+            sendVehicles(exchange, result.getVehicles(), null, null, result);
+            return;
+        }
+
+        String searchType = query.getOrDefault("type", "All Fields");
+        String text = query.getOrDefault("q", "").toLowerCase();
+        if (InventoryIndex.isNarrowed(searchType, text)) {
+            sendVehicles(exchange, index.search(searchType, text).getVehicles(), null, null, null);
+            return;
+        }
+        List<Vehicle> inRange = VehicleSearch.findInRange(manager, searchType, text);
+        if (inRange != null) {
+            sendVehicles(exchange, inRange, null, null, null);
+        } else {
+            sendVehicles(exchange, manager.getVehiclesForDisplay(), searchType, text, null);
+        }
+    }
+
+    /**
+     * Gets the query parameter and facet name of an indexed field
+     */
+    private static String parameterName(InventoryIndex.Field field) {
+        // "type" already names the search type
+        return field == InventoryIndex.Field.TYPE ? "vehicle_type" : field.name().toLowerCase(Locale.ROOT);
+    }
+
+    private void add(HttpExchange exchange, byte[] body) throws IOException {
+        Vehicle vehicle = jsonFileHandler.readVehicle(readBody(body));
+        if (vehicle == null) {
+            throw new IllegalArgumentException("Vehicle is missing required fields");
+        }
+        sendResult(exchange, pipeline.addVehicle(vehicle));
+    }
+
+    private void remove(HttpExchange exchange, String vehicleId) throws IOException {
+        sendResult(exchange, pipeline.submit(() -> !manager.removeVehicles(List.of(vehicleId), pipeline.getInventoryFile()).isEmpty()));
+    }
+
+    private void rent(HttpExchange exchange, String vehicleId, JsonNode request) throws IOException {
+        String startDate = requireText(request, "start_date");
+        String endDate = requireText(request, "end_date");
+        String dealerId = dealerOf(vehicleId, request, "dealership_id");
+        if (dealerId == null) {
+            sendError(exchange, 404, "No vehicle with ID " + vehicleId);
+            return;
+        }
+        sendResult(exchange, pipeline.rentVehicle(dealerId, vehicleId, startDate, endDate));
+    }
+
+    private void returnVehicle(HttpExchange exchange, String vehicleId, JsonNode request) throws IOException {
+        String dealerId = dealerOf(vehicleId, request, "dealership_id");
+        if (dealerId == null) {
+            sendError(exchange, 404, "No vehicle with ID " + vehicleId);
+            return;
+        }
+        sendResult(exchange, pipeline.returnVehicle(dealerId, vehicleId));
+    }
+
+    private void reserve(HttpExchange exchange, String vehicleId, JsonNode request, boolean book) throws IOException {
+        String startDate = requireText(request, "start_date");
+        String endDate = requireText(request, "end_date");
+        String dealerId = dealerOf(vehicleId, request, "dealership_id");
+        if (dealerId == null) {
+            sendError(exchange, 404, "No vehicle with ID " + vehicleId);
+            return;
+        }
+        sendResult(exchange, book
+                ? pipeline.reserveVehicle(dealerId, vehicleId, startDate, endDate)
+                : pipeline.cancelReservation(dealerId, vehicleId, startDate, endDate));
+    }
+
+    private void transfer(HttpExchange exchange, String vehicleId, JsonNode request) throws IOException {
+        String targetDealerId = requireText(request, "dealership_id");
+        String sourceDealerId = dealerOf(vehicleId, request, "source_dealership_id");
+        if (sourceDealerId == null) {
+            sendError(exchange, 404, "No vehicle with ID " + vehicleId);
+            return;
+        }
+        sendResult(exchange, pipeline.transferVehicle(sourceDealerId, targetDealerId, vehicleId));
+    }
+
+    /**
+     * Gets the dealer named in the request, or the dealer that has the vehicle now
+     */
+    private String dealerOf(String vehicleId, JsonNode request, String field) {
+        JsonNode dealerId = request.get(field);
+        if (dealerId != null && dealerId.isTextual()) {
+            return dealerId.asText();
+        }
+        Vehicle vehicle = manager.findVehicle(vehicleId);
+        return vehicle == null ? null : vehicle.getDealerId();
+    }
+
+    private JsonNode readBody(byte[] body) {
+        if (body.length == 0) {
+            return objectMapper.createObjectNode();
+        }
+        try {
+            JsonNode node = objectMapper.readTree(body);
+            if (node == null || !node.isObject()) {
+                throw new IllegalArgumentException("Request body must be a JSON object");
+            }
+            return node;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Request body is not valid JSON: " + e.getMessage());
+        }
+    }
+
+    private static String requireText(JsonNode request, String field) {
+        JsonNode value = request.get(field);
+        if (value == null || !value.isTextual()) {
+            throw new IllegalArgumentException("Missing field: " + field);
+        }
+        return value.asText();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+
+        for (String pair : rawQuery.split("&")) {
+            int split = pair.indexOf('=');
+            String name = split < 0 ? pair : pair.substring(0, split);
+            String value = split < 0 ? "" : pair.substring(split + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * Waits for a submitted change to be durable and answers with its result
+     */
+    private void sendResult(HttpExchange exchange, Future<Boolean> result) throws IOException {
+        boolean success;
+        try {
+            success = result.get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "Interrupted");
+            return;
+        } catch (ExecutionException | TimeoutException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Inventory change failed: " + cause);
+            sendError(exchange, 500, "Change failed: " + cause.getMessage());
+            return;
+        }
+        // A change that is not allowed (for example renting a rented vehicle) is a conflict
+        send(exchange, success ? 200 : 409, "{\"success\":" + success + "}");
+    }
+
+    /**
+     * Streams the vehicles that match a search, or all of them when searchType is null,
+     * in the inventory file format
+     * @param facets The index search the vehicles came from, to add its facet counts, or null
+     */
+    private void sendVehicles(HttpExchange exchange, List<Vehicle> vehicles, String searchType, String text,
+                              InventoryIndex.Result facets) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // Length 0 sends the body in chunks, so a large inventory is never held in memory as text
+        exchange.sendResponseHeaders(200, 0);
+        try (JsonGenerator generator = jsonFileHandler.createGenerator(
+                new BufferedOutputStream(exchange.getResponseBody()))) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("car_inventory");
+            for (Vehicle vehicle : vehicles) {
+                if (searchType != null && !VehicleSearch.matchesSearchCriteria(vehicle, searchType, text)) continue;
+
+                generator.writeStartObject();
+                jsonFileHandler.writeVehicleFields(generator, vehicle);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            if (facets != null) {
+                generator.writeObjectFieldStart("facets");
+                for (InventoryIndex.Field field : InventoryIndex.Field.values()) {
+                    generator.writeObjectFieldStart(parameterName(field));
+                    for (Map.Entry<String, Integer> count : facets.getFacetCounts(field).entrySet()) {
+                        generator.writeNumberField(count.getKey(), count.getValue());
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringWriter text = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(text)) {
+            generator.writeStartObject();
+            generator.writeStringField("error", message);
+            generator.writeEndObject();
+        }
+        send(exchange, status, text.toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
@@ -1,12 +1,22 @@
 package org.example;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.*;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class JSONFileHandler {
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;   // Buffer between the generator and the file
+
     private final ObjectMapper objectMapper;
+    private boolean compactOutput = false;                      // Write without pretty printing when true
 
     public JSONFileHandler() {
         objectMapper = new ObjectMapper();
@@ -16,112 +26,400 @@ public class JSONFileHandler {
     }
 
     public List<Vehicle> readInventory(File file) {
-        try {
-            if (!file.exists()) {
-                return new ArrayList<>();
-            }
-            JsonNode rootNode = objectMapper.readTree(file);
-            JsonNode inventory = rootNode.get("car_inventory");
-            if (inventory == null) return Collections.emptyList();
-
-            List<Vehicle> vehicles = new ArrayList<>();
-            for (JsonNode node : inventory) {
-                Vehicle vehicle = inferVehicleType(node);
-                if (vehicle != null) {
-                    vehicles.add(vehicle);
+        List<Vehicle> vehicles = new ArrayList<>();
+        readInventory(file, vehicles::add);
+        return vehicles;
+    }
+
+    /**
+     * Streams the vehicles of an inventory file one at a time. The file is read token by token,
+     * so apart from the vehicles the consumer keeps, memory use does not grow with the file.
+     * @param file The inventory file
+     * @param consumer Called once for every vehicle read
+     * @return The number of vehicles read
+     */
+    public int readInventory(File file, Consumer<Vehicle> consumer) {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        int count = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!"car_inventory".equals(name) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    Vehicle vehicle = readVehicle(parser);
+                    if (vehicle != null) {
+                        consumer.accept(vehicle);
+                        count++;
+                    }
                 }
             }
-            return vehicles;
         } catch (IOException e) {
             e.printStackTrace();
-            return Collections.emptyList();
         }
+        return count;
     }
 
-    private Vehicle inferVehicleType(JsonNode node) {
-        try {
-            String model = node.get("vehicle_model").asText().toLowerCase();
-            Vehicle vehicle;
-
-            if (model.contains("cr-v") || model.contains("explorer") || model.contains("range rover")) {
-                vehicle = new SUV();
-            } else if (model.contains("model 3") || model.contains("g70")) {
-                vehicle = new Sedan();
-            } else if (model.contains("silverado") || model.contains("tundra")) {
-                vehicle = new Pickup();
-            } else if (model.contains("supra") || model.contains("miata")) {
-                vehicle = new SportsCar();
-            } else {
-                vehicle = new SUV();
-            }
+    /**
+     * Creates a vehicle from an already parsed record, used for journal records
+     * @param node The record holding the vehicle fields
+     * @return The vehicle, or null if a required field is missing
+     */
+    Vehicle readVehicle(JsonNode node) {
+        try (JsonParser parser = objectMapper.treeAsTokens(node)) {
+            parser.nextToken();
+            return readVehicle(parser);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-            vehicle.setVehicleId(node.get("vehicle_id").asText());
-            vehicle.setManufacturer(node.get("vehicle_manufacturer").asText());
-            vehicle.setModel(node.get("vehicle_model").asText());
-            vehicle.setPrice(node.get("price").asDouble());
-            vehicle.setDealerId(node.get("dealership_id").asText());
-            vehicle.setAcquisitionDate(new Date(node.get("acquisition_date").asLong()));
+    /**
+     * Reads one vehicle object, the parser must be positioned on its START_OBJECT token.
+     * Afterwards the parser is positioned on the matching END_OBJECT token.
+     */
+    private Vehicle readVehicle(JsonParser parser) throws IOException {
+        String vehicleId = null;
+        String manufacturer = null;
+        String model = null;
+        String dealerId = null;
+        String dealerName = null;
+        double price = 0;
+        long acquisitionDate = 0;
+        long rentalStartDate = 0;
+        long rentalEndDate = 0;
+        boolean isRented = false;
+        boolean hasPrice = false;
+        boolean hasAcquisitionDate = false;
+        boolean hasRentalStartDate = false;
+        boolean hasRentalEndDate = false;
+        ReservationBook reservations = ReservationBook.EMPTY;
 
-            // Handle rental information
-            if (node.has("is_rented")) {
-                vehicle.setRented(node.get("is_rented").asBoolean());
-            }
-            if (node.has("rental_start_date")) {
-                vehicle.setRentalStartDate(new Date(node.get("rental_start_date").asLong()));
-            }
-            if (node.has("rental_end_date")) {
-                vehicle.setRentalEndDate(new Date(node.get("rental_end_date").asLong()));
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "vehicle_id":
+                    vehicleId = parser.getText();
+                    break;
+                case "vehicle_manufacturer":
+                    manufacturer = parser.getText();
+                    break;
+                case "vehicle_model":
+                    model = parser.getText();
+                    break;
+                case "dealership_id":
+                    dealerId = parser.getText();
+                    break;
+                case "dealer_name":
+                    dealerName = parser.getText();
+                    break;
+                case "price":
+                    price = parser.getValueAsDouble();
+                    hasPrice = true;
+                    break;
+                case "acquisition_date":
+                    acquisitionDate = parser.getValueAsLong();
+                    hasAcquisitionDate = true;
+                    break;
+                case "is_rented":
+                    isRented = parser.getValueAsBoolean();
+                    break;
+                case "rental_start_date":
+                    rentalStartDate = parser.getValueAsLong();
+                    hasRentalStartDate = true;
+                    break;
+                case "rental_end_date":
+                    rentalEndDate = parser.getValueAsLong();
+                    hasRentalEndDate = true;
+                    break;
+                case "reservations":
+                    reservations = readReservations(parser);
+                    break;
+                default:
+                    parser.skipChildren();
             }
+        }
+
+        if (vehicleId == null || manufacturer == null || model == null || dealerId == null
+                || !hasPrice || !hasAcquisitionDate) {
+            System.err.println("Skipping vehicle with missing fields: " + vehicleId);
+            return null;
+        }
+
+        Vehicle vehicle = inferVehicleType(model);
+        vehicle.setVehicleId(vehicleId);
+        vehicle.setManufacturer(manufacturer);
+        vehicle.setModel(model);
+        vehicle.setPrice(price);
+        vehicle.setDealerId(dealerId);
+        vehicle.setAcquisitionDate(new Date(acquisitionDate));
+
+        // Handle rental information
+        vehicle.setRented(isRented);
+        if (hasRentalStartDate) {
+            vehicle.setRentalStartDate(new Date(rentalStartDate));
+        }
+        if (hasRentalEndDate) {
+            vehicle.setRentalEndDate(new Date(rentalEndDate));
+        }
+        vehicle.setReservations(reservations);
+
+        // Handle dealer name in metadata
+        if (dealerName != null) {
+            vehicle.getMetadata().put("dealer_name", dealerName);
+        }
+
+        return vehicle;
+    }
+
+    /**
+     * Reads a reservations array, the parser must be positioned on its START_ARRAY token.
+     * Bookings that overlap an earlier one are skipped.
+     */
+    private ReservationBook readReservations(JsonParser parser) throws IOException {
+        ReservationBook reservations = ReservationBook.EMPTY;
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return reservations;
+        }
 
-            // Handle dealer name in metadata
-            if (node.has("dealer_name")) {
-                vehicle.getMetadata().put("dealer_name", node.get("dealer_name").asText());
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Long start = null;
+            Long end = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("start_date".equals(name)) {
+                    start = parser.getValueAsLong();
+                } else if ("end_date".equals(name)) {
+                    end = parser.getValueAsLong();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (start != null && end != null && end >= start && !reservations.overlaps(start, end)) {
+                reservations = reservations.plus(start, end);
             }
+        }
+        return reservations;
+    }
 
-            return vehicle;
-        } catch (Exception e) {
+    /**
+     * Reads the reservations array of an already parsed record, used for journal records
+     * @param node The array
+     * @return The bookings, empty if the node is not an array
+     */
+    ReservationBook readReservations(JsonNode node) {
+        try (JsonParser parser = objectMapper.treeAsTokens(node)) {
+            parser.nextToken();
+            return readReservations(parser);
+        } catch (IOException e) {
             e.printStackTrace();
-            return null;
+            return ReservationBook.EMPTY;
+        }
+    }
+
+    private Vehicle inferVehicleType(String vehicleModel) {
+        String model = vehicleModel.toLowerCase();
+
+        if (model.contains("cr-v") || model.contains("explorer") || model.contains("range rover")) {
+            return new SUV();
+        } else if (model.contains("model 3") || model.contains("g70")) {
+            return new Sedan();
+        } else if (model.contains("silverado") || model.contains("tundra")) {
+            return new Pickup();
+        } else if (model.contains("supra") || model.contains("miata")) {
+            return new SportsCar();
+        } else {
+            return new SUV();
         }
     }
 
     public void writeInventory(List<Vehicle> vehicles, File file) {
         try {
-            Map<String, Map<String, Object>> vehicleMap = new HashMap<>();
+            writeInventory(vehicles, file, null);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Turns pretty printing of written inventory files off or on
+     * @param compactOutput true to write without indentation and line breaks
+     */
+    public void setCompactOutput(boolean compactOutput) {
+        this.compactOutput = compactOutput;
+    }
+
+    /**
+     * Writes an inventory snapshot to a temp file and renames it into place, so readers
+     * never see a half written snapshot. The temp file is forced to disk before the rename and
+     * the directory after it, so once this returns the snapshot survives a crash and the journal
+     * records folded into it can be deleted.
+     * @param vehicles The vehicles in the snapshot
+     * @param file The snapshot file
+     * @param journalSequence The last journal sequence number folded into the snapshot
+     */
+    public void writeSnapshot(List<Vehicle> vehicles, File file, long journalSequence) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        writeInventory(vehicles, tempFile, journalSequence);
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(file.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Forces a directory to disk, so a rename in it survives a crash. Some platforms, like
+     * Windows, can't open a directory for that; there the rename is left to the file system.
+     */
+    private static void forceDirectory(File directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
 
-            for (Vehicle vehicle : vehicles) {
-                Map<String, Object> vehicleData = new HashMap<>();
-                vehicleData.put("vehicle_id", vehicle.getVehicleId());
-                vehicleData.put("vehicle_manufacturer", vehicle.getManufacturer());
-                vehicleData.put("vehicle_model", vehicle.getModel());
-                vehicleData.put("acquisition_date", vehicle.getAcquisitionDate().getTime());
-                vehicleData.put("price", vehicle.getPrice());
-                vehicleData.put("dealership_id", vehicle.getDealerId());
-                vehicleData.put("vehicle_type", getVehicleType(vehicle));
-
-                // Add rental information
-                vehicleData.put("is_rented", vehicle.isRented());
-                if (vehicle.getRentalStartDate() != null) {
-                    vehicleData.put("rental_start_date", vehicle.getRentalStartDate().getTime());
-                }
-                if (vehicle.getRentalEndDate() != null) {
-                    vehicleData.put("rental_end_date", vehicle.getRentalEndDate().getTime());
+    /**
+     * Reads the last journal sequence number stored in a snapshot without loading the vehicles
+     * @param file The snapshot file
+     * @return The sequence number, or 0 if the snapshot has none
+     */
+    public long readJournalSequence(File file) {
+        if (!file.exists()) {
+            return 0;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("journal_seq".equals(name)) {
+                    return parser.getLongValue();
                 }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
 
-                // Add dealer name if available
-                if (vehicle.getMetadata().containsKey("dealer_name")) {
-                    vehicleData.put("dealer_name", vehicle.getMetadata().get("dealer_name"));
-                }
+    /**
+     * Creates a generator that writes JSON straight to a stream
+     * @param out The stream to write to
+     * @return A generator, the caller closes it
+     */
+    JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return objectMapper.getFactory().createGenerator(out);
+    }
+
+    /**
+     * Streams the vehicles straight to a buffered file, one object at a time,
+     * without building an intermediate map per vehicle
+     */
+    private void writeInventory(List<Vehicle> vehicles, File file, Long journalSequence) throws IOException {
+        Set<String> writtenIds = new HashSet<>();
 
-                vehicleMap.put(vehicle.getVehicleId(), vehicleData);
+        try (JsonGenerator generator = createGenerator(
+                new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_SIZE))) {
+            if (!compactOutput) {
+                generator.useDefaultPrettyPrinter();
             }
 
-            Map<String, List<Map<String, Object>>> wrapper = new HashMap<>();
-            wrapper.put("car_inventory", new ArrayList<>(vehicleMap.values()));
-            objectMapper.writeValue(file, wrapper);
-        } catch (IOException e) {
-            e.printStackTrace();
+            generator.writeStartObject();
+
+            // The sequence number goes first so readJournalSequence can stop early
+            if (journalSequence != null) {
+                generator.writeNumberField("journal_seq", journalSequence);
+            }
+
+            generator.writeArrayFieldStart("car_inventory");
+            for (Vehicle vehicle : vehicles) {
+                // Vehicle IDs are unique in the file, the first one wins
+                if (!writtenIds.add(vehicle.getVehicleId())) continue;
+
+                generator.writeStartObject();
+                writeVehicleFields(generator, vehicle);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes the fields of a vehicle into the object the generator is currently in,
+     * used for inventory and journal records
+     * @param generator The generator positioned inside an object
+     * @param vehicle The vehicle to write
+     */
+    void writeVehicleFields(JsonGenerator generator, Vehicle vehicle) throws IOException {
+        generator.writeStringField("vehicle_id", vehicle.getVehicleId());
+        generator.writeStringField("vehicle_manufacturer", vehicle.getManufacturer());
+        generator.writeStringField("vehicle_model", vehicle.getModel());
+        generator.writeNumberField("acquisition_date", vehicle.getAcquisitionDate().getTime());
+        generator.writeNumberField("price", vehicle.getPrice());
+        generator.writeStringField("dealership_id", vehicle.getDealerId());
+        generator.writeStringField("vehicle_type", getVehicleType(vehicle));
+
+        // Add rental information, read once so the status and dates match
+        RentalState rental = vehicle.getRentalState();
+        generator.writeBooleanField("is_rented", rental.isRented());
+        if (rental.getStartDate() != null) {
+            generator.writeNumberField("rental_start_date", rental.getStartDate().getTime());
+        }
+        if (rental.getEndDate() != null) {
+            generator.writeNumberField("rental_end_date", rental.getEndDate().getTime());
+        }
+        if (rental.getReservations().size() > 0) {
+            writeReservations(generator, rental.getReservations());
+        }
+
+        // Add dealer name if available
+        Object dealerName = vehicle.getMetadata().get("dealer_name");
+        if (dealerName != null) {
+            generator.writeStringField("dealer_name", dealerName.toString());
+        }
+    }
+
+    /**
+     * Writes a reservations field into the object the generator is currently in
+     * @param generator The generator positioned inside an object
+     * @param reservations The bookings to write
+     */
+    void writeReservations(JsonGenerator generator, ReservationBook reservations) throws IOException {
+        generator.writeArrayFieldStart("reservations");
+        for (int i = 0; i < reservations.size(); i++) {
+            generator.writeStartObject();
+            generator.writeNumberField("start_date", reservations.getStartDate(i).getTime());
+            generator.writeNumberField("end_date", reservations.getEndDate(i).getTime());
+            generator.writeEndObject();
         }
+        generator.writeEndArray();
     }
 
     private String getVehicleType(Vehicle vehicle) {
@@ -2,9 +2,17 @@ package org.example;
 
 import javafx.application.Application;
 
+import java.util.Arrays;
+
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // Run headless as an HTTP server: --server [port] [inventory file]
+        if (args.length > 0 && args[0].equals("--server")) {
+            InventoryServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         // Launch the JavaFX application
         Application.launch(DealershipJavaFXGUI.class, args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package org.example;
+
+/**
+ * The RecoveryReport class describes how long a cold start took to rebuild the inventory
+ * from the snapshot and the journal.
+ */
+public class RecoveryReport {
+    private final int snapshotVehicles;     // Vehicles read from the snapshot
+    private final int replayedRecords;      // Journal records replayed over the snapshot
+    private final long elapsedMillis;       // Total recovery time
+
+    public RecoveryReport(int snapshotVehicles, int replayedRecords, long elapsedMillis) {
+        this.snapshotVehicles = snapshotVehicles;
+        this.replayedRecords = replayedRecords;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getSnapshotVehicles() {
+        return snapshotVehicles;
+    }
+
+    public int getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Recovered " + snapshotVehicles + " vehicles and " + replayedRecords
+                + " journal records in " + elapsedMillis + " ms";
+    }
+}
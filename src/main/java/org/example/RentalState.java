@@ -0,0 +1,125 @@
+package org.example;
+
+import java.util.Date;
+
+/**
+ * The RentalState class is the rental state of one vehicle: whether it is available, rented or
+ * held for a transfer or removal, the rental period and the future bookings. A vehicle swaps
+ * whole states with a single compare-and-set, so the status, the dates and the bookings always
+ * change together and a rental can't overlap a booking made at the same time.
+ * Every change gets the next version number, which is written to the journal so replay can
+ * put rentals and returns that were journaled out of order back in the right order.
+ */
+public final class RentalState {
+    /**
+     * What the vehicle is doing right now
+     */
+    public enum Status {
+        AVAILABLE,  // Can be rented, transferred or removed
+        RENTED,     // Rented out for the rental period
+        HELD        // Being transferred or removed, can't be rented
+    }
+
+    static final RentalState AVAILABLE = new RentalState(Status.AVAILABLE, null, null, 0);
+
+    private final Status status;
+    private final Date startDate;   // Start of the current or last rental
+    private final Date endDate;     // End of the current or last rental
+    private final long version;     // Number of changes made to the rental state
+    private final ReservationBook reservations; // Bookings for later periods
+
+    /**
+     * Constructor that initialize a RentalState without bookings
+     * @param status What the vehicle is doing
+     * @param startDate Start of the current or last rental, may be null
+     * @param endDate End of the current or last rental, may be null
+     * @param version Number of changes made to the rental state
+     */
+    public RentalState(Status status, Date startDate, Date endDate, long version) {
+        this(status, startDate, endDate, version, ReservationBook.EMPTY);
+    }
+
+    /**
+     * Constructor that initialize a RentalState
+     * @param status What the vehicle is doing
+     * @param startDate Start of the current or last rental, may be null
+     * @param endDate End of the current or last rental, may be null
+     * @param version Number of changes made to the rental state
+     * @param reservations Bookings for later periods
+     */
+    public RentalState(Status status, Date startDate, Date endDate, long version, ReservationBook reservations) {
+        this.status = status;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.version = version;
+        this.reservations = reservations;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ReservationBook getReservations() {
+        return reservations;
+    }
+
+    public boolean isRented() {
+        return status == Status.RENTED;
+    }
+
+    /**
+     * Checks whether the vehicle can be booked for a period: it is not held, not rented during
+     * the period and has no booking that shares a day with it
+     * @param start Start of the period in milliseconds
+     * @param end End of the period in milliseconds, the day is included
+     * @return true if the period is free
+     */
+    public boolean isFreeBetween(long start, long end) {
+        if (status == Status.HELD) return false;
+        if (status == Status.RENTED && overlapsRental(start, end)) return false;
+        return !reservations.overlaps(start, end);
+    }
+
+    /**
+     * Checks whether a period shares a day with the current rental. A rental without dates takes every period.
+     */
+    private boolean overlapsRental(long start, long end) {
+        if (startDate == null || endDate == null) return true;
+        return startDate.getTime() <= end && start <= endDate.getTime();
+    }
+
+    /**
+     * Gets the next state with a different status, keeping the rental period
+     */
+    RentalState withStatus(Status newStatus) {
+        return new RentalState(newStatus, startDate, endDate, version + 1, reservations);
+    }
+
+    /**
+     * Gets the next state rented for a period. A booking for exactly that period is picked up
+     * and leaves the book.
+     */
+    RentalState rented(Date newStartDate, Date newEndDate) {
+        return new RentalState(Status.RENTED, newStartDate, newEndDate, version + 1,
+                reservations.minus(newStartDate.getTime(), newEndDate.getTime()));
+    }
+
+    /**
+     * Gets the next state with other bookings
+     */
+    RentalState withReservations(ReservationBook newReservations) {
+        return new RentalState(status, startDate, endDate, version + 1, newReservations);
+    }
+}
@@ -0,0 +1,126 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * The ReservationBook class holds the future bookings of one vehicle. Bookings never overlap, so
+ * kept sorted by start date they are also sorted by end date, and whether a period is free is
+ * one binary search: only the last booking starting on or before the end of the period can
+ * overlap it.
+ * <p>
+ * A period runs from its start date to its end date, both included, so a booking that ends on
+ * the day another one starts overlaps it. A ReservationBook never changes; adding or removing
+ * a booking gives a new one, which a vehicle swaps in with its rental state.
+ */
+public final class ReservationBook {
+    static final ReservationBook EMPTY = new ReservationBook(new long[0], new long[0]);
+
+    private final long[] starts;    // Start of every booking in milliseconds, ascending
+    private final long[] ends;      // End of every booking in milliseconds, by booking
+
+    private ReservationBook(long[] starts, long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Gets the number of bookings
+     * @return The number of bookings
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Gets the start date of a booking
+     * @param index The booking, 0 for the earliest
+     * @return The start date
+     */
+    public Date getStartDate(int index) {
+        return new Date(starts[index]);
+    }
+
+    /**
+     * Gets the end date of a booking
+     * @param index The booking, 0 for the earliest
+     * @return The end date
+     */
+    public Date getEndDate(int index) {
+        return new Date(ends[index]);
+    }
+
+    /**
+     * Checks whether any booking shares a day with a period
+     * @param start Start of the period in milliseconds
+     * @param end End of the period in milliseconds
+     * @return true if the period is not free
+     */
+    public boolean overlaps(long start, long end) {
+        int index = lastStartingBy(end);
+        return index >= 0 && ends[index] >= start;
+    }
+
+    /**
+     * Checks whether a period is booked exactly
+     * @param start Start of the period in milliseconds
+     * @param end End of the period in milliseconds
+     * @return true if there is a booking with this start and end
+     */
+    public boolean contains(long start, long end) {
+        int index = Arrays.binarySearch(starts, start);
+        return index >= 0 && ends[index] == end;
+    }
+
+    /**
+     * Adds a booking
+     * @param start Start of the period in milliseconds
+     * @param end End of the period in milliseconds, not before the start
+     * @return A book with the booking added
+     * @throws IllegalArgumentException if the period is not free
+     */
+    ReservationBook plus(long start, long end) {
+        if (end < start || overlaps(start, end)) {
+            throw new IllegalArgumentException("Period is not free: " + new Date(start) + " - " + new Date(end));
+        }
+
+        int index = lastStartingBy(end) + 1;
+        long[] newStarts = new long[starts.length + 1];
+        long[] newEnds = new long[ends.length + 1];
+        System.arraycopy(starts, 0, newStarts, 0, index);
+        System.arraycopy(ends, 0, newEnds, 0, index);
+        newStarts[index] = start;
+        newEnds[index] = end;
+        System.arraycopy(starts, index, newStarts, index + 1, starts.length - index);
+        System.arraycopy(ends, index, newEnds, index + 1, ends.length - index);
+        return new ReservationBook(newStarts, newEnds);
+    }
+
+    /**
+     * Removes a booking
+     * @param start Start of the booking in milliseconds
+     * @param end End of the booking in milliseconds
+     * @return A book without the booking, or this book if there is no such booking
+     */
+    ReservationBook minus(long start, long end) {
+        int index = Arrays.binarySearch(starts, start);
+        if (index < 0 || ends[index] != end) return this;
+        if (starts.length == 1) return EMPTY;
+
+        long[] newStarts = new long[starts.length - 1];
+        long[] newEnds = new long[ends.length - 1];
+        System.arraycopy(starts, 0, newStarts, 0, index);
+        System.arraycopy(ends, 0, newEnds, 0, index);
+        System.arraycopy(starts, index + 1, newStarts, index, starts.length - index - 1);
+        System.arraycopy(ends, index + 1, newEnds, index, ends.length - index - 1);
+        return new ReservationBook(newStarts, newEnds);
+    }
+
+    /**
+     * Gets the position of the last booking that starts on or before a time, -1 if there is none
+     */
+    private int lastStartingBy(long time) {
+        int index = Arrays.binarySearch(starts, time);
+        return index >= 0 ? index : -index - 2;
+    }
+}
@@ -0,0 +1,147 @@
+package org.example;
+
+import java.util.*;
+
+/**
+ * The TrigramIndex class narrows substring searches over many short strings, like vehicle IDs.
+ * Every string is stored under each three-character piece (trigram) of its lowercase text, as a
+ * sorted list of the numbers it was added with. A query can only be contained in a string that
+ * has all the trigrams of the query, so intersecting the lists of the query's trigrams gives a
+ * short list of candidates, which the caller then checks with String.contains.
+ * <p>
+ * Queries shorter than three characters have no trigrams and can't be narrowed.
+ * The class is not thread-safe, see InventoryIndex.
+ */
+public class TrigramIndex {
+    private final Map<Long, Postings> postings = new HashMap<>(); // Numbers of the strings by trigram
+
+    /**
+     * Checks whether a query can be narrowed down by the index
+     * @param query The text to search for
+     * @return true if the query is at least three characters long
+     */
+    public static boolean canNarrow(String query) {
+        return query.length() >= 3;
+    }
+
+    /**
+     * Adds a string
+     * @param text The string
+     * @param id The number the string is found by, unique among the strings added
+     */
+    public void add(String text, int id) {
+        for (long trigram : trigramsOf(text)) {
+            postings.computeIfAbsent(trigram, key -> new Postings()).add(id);
+        }
+    }
+
+    /**
+     * Removes a string added earlier
+     * @param text The string, as it was added
+     * @param id The number it was added with
+     */
+    public void remove(String text, int id) {
+        for (long trigram : trigramsOf(text)) {
+            Postings list = postings.get(trigram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Finds the strings that have every trigram of a query
+     * @param query The text to search for, at least three characters
+     * @return The numbers of the candidate strings in ascending order, a superset of the ones that contain the query
+     */
+    public int[] candidates(String query) {
+        if (!canNarrow(query)) {
+            throw new IllegalArgumentException("Query too short to narrow: " + query);
+        }
+
+        // Intersect the shortest lists first, the result only gets shorter
+        List<Postings> lists = new ArrayList<>();
+        for (long trigram : trigramsOf(query)) {
+            Postings list = postings.get(trigram);
+            if (list == null) return new int[0];
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of distinct trigrams
+     * @return The number of trigrams
+     */
+    public int size() {
+        return postings.size();
+    }
+
+    /**
+     * Gets the distinct trigrams of the lowercase text, each packed into a long
+     */
+    private static Set<Long> trigramsOf(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= lower.length(); i++) {
+            trigrams.add(((long) lower.charAt(i) << 32) | ((long) lower.charAt(i + 1) << 16) | lower.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Keeps the ids that are also in the list, looking each one up with a binary search
+     * since the candidates are usually far fewer than the list
+     */
+    private static int[] intersect(int[] ids, Postings list) {
+        int[] kept = new int[ids.length];
+        int count = 0;
+        int from = 0;
+        for (int id : ids) {
+            int index = Arrays.binarySearch(list.ids, from, list.size, id);
+            if (index >= 0) {
+                kept[count++] = id;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    /**
+     * A sorted list of ids. Ids mostly arrive in ascending order, so adding one is usually an append.
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            int index = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) return;
+
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) return false;
+
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
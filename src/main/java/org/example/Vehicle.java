@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.*;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "vehicle_type", visible = true)
 @JsonSubTypes({
@@ -26,12 +27,8 @@ public abstract class Vehicle {
     private double price;
     @JsonProperty("dealership_id")
     private String dealerId;
-    @JsonProperty("is_rented")
-    private boolean isRented = false;
-    @JsonProperty("rental_start_date")
-    private Date rentalStartDate;
-    @JsonProperty("rental_end_date")
-    private Date rentalEndDate;
+    @JsonIgnore
+    private final AtomicReference<RentalState> rentalState = new AtomicReference<>(RentalState.AVAILABLE);
 
     @JsonIgnore
     private Map<String, Object> metadata = new HashMap<>();
@@ -57,29 +54,199 @@ public abstract class Vehicle {
     public Map<String, Object> getMetadata() { return metadata; }
     public void setMetadata(Map<String, Object> metadata) { this.metadata = metadata; }
 
-    // Rental methods
-    public boolean isRented() { return isRented; }
-    public void setRented(boolean rented) { this.isRented = rented; }
-    public Date getRentalStartDate() { return rentalStartDate; }
-    public void setRentalStartDate(Date rentalStartDate) { this.rentalStartDate = rentalStartDate; }
-    public Date getRentalEndDate() { return rentalEndDate; }
-    public void setRentalEndDate(Date rentalEndDate) { this.rentalEndDate = rentalEndDate; }
+    // Rental methods, the setters are meant for loading a vehicle before it is shared and keep the version
+    @JsonProperty("is_rented")
+    public boolean isRented() { return rentalState.get().isRented(); }
+    @JsonProperty("is_rented")
+    public void setRented(boolean rented) {
+        RentalState.Status status = rented ? RentalState.Status.RENTED : RentalState.Status.AVAILABLE;
+        rentalState.updateAndGet(s -> new RentalState(status, s.getStartDate(), s.getEndDate(), s.getVersion(), s.getReservations()));
+    }
+    @JsonProperty("rental_start_date")
+    public Date getRentalStartDate() { return rentalState.get().getStartDate(); }
+    @JsonProperty("rental_start_date")
+    public void setRentalStartDate(Date rentalStartDate) {
+        rentalState.updateAndGet(s -> new RentalState(s.getStatus(), rentalStartDate, s.getEndDate(), s.getVersion(), s.getReservations()));
+    }
+    @JsonProperty("rental_end_date")
+    public Date getRentalEndDate() { return rentalState.get().getEndDate(); }
+    @JsonProperty("rental_end_date")
+    public void setRentalEndDate(Date rentalEndDate) {
+        rentalState.updateAndGet(s -> new RentalState(s.getStatus(), s.getStartDate(), rentalEndDate, s.getVersion(), s.getReservations()));
+    }
+    @JsonIgnore
+    public ReservationBook getReservations() { return rentalState.get().getReservations(); }
+    @JsonIgnore
+    public void setReservations(ReservationBook reservations) {
+        rentalState.updateAndGet(s -> new RentalState(s.getStatus(), s.getStartDate(), s.getEndDate(), s.getVersion(), reservations));
+    }
+
+    /**
+     * Gets the rental status and period as one consistent value
+     * @return The current rental state
+     */
+    @JsonIgnore
+    public RentalState getRentalState() { return rentalState.get(); }
 
     public boolean isAvailableForRent() {
-        return !isRented;
+        return rentalState.get().getStatus() == RentalState.Status.AVAILABLE;
+    }
+
+    /**
+     * Checks whether the vehicle is free to be booked for a period
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @return true if the vehicle is not held, rented or booked on any day of the period
+     */
+    public boolean isAvailableBetween(Date startDate, Date endDate) {
+        return rentalState.get().isFreeBetween(startDate.getTime(), endDate.getTime());
     }
 
+    /**
+     * Rents the vehicle if it is available and the period doesn't overlap a booking, except a
+     * booking for exactly that period, which is picked up. Two callers renting at the same time
+     * can't both succeed, the state only moves from available to rented with a single compare-and-set.
+     * @param startDate The rental start date
+     * @param endDate The rental end date
+     * @return true if the vehicle was rented, false otherwise
+     */
     public boolean rent(Date startDate, Date endDate) {
-        if (!isAvailableForRent()) return false;
-        this.isRented = true;
-        this.rentalStartDate = startDate;
-        this.rentalEndDate = endDate;
-        return true;
+        return tryRent(startDate, endDate) != null;
     }
 
+    /**
+     * Returns the vehicle if it is rented, keeping the last rental period
+     * @return true if the vehicle was returned, false otherwise
+     */
     public boolean returnVehicle() {
-        if (!isRented) return false;
-        this.isRented = false;
-        return true;
+        return tryReturn() != null;
+    }
+
+    /**
+     * Rents the vehicle if it is available
+     * @param startDate The rental start date
+     * @param endDate The rental end date
+     * @return The state this call moved the vehicle to, or null if it was not available
+     */
+    RentalState tryRent(Date startDate, Date endDate) {
+        if (!isAvailableForRent()) return null;
+        while (true) {
+            RentalState current = rentalState.get();
+            if (current.getStatus() != RentalState.Status.AVAILABLE) return null;
+            RentalState next = current.rented(startDate, endDate);
+            if (next.getReservations().overlaps(startDate.getTime(), endDate.getTime())) return null;
+            if (rentalState.compareAndSet(current, next)) return next;
+        }
+    }
+
+    /**
+     * Returns the vehicle if it is rented
+     * @return The state this call moved the vehicle to, or null if it was not rented
+     */
+    RentalState tryReturn() {
+        while (true) {
+            RentalState current = rentalState.get();
+            if (!current.isRented()) return null;
+            RentalState next = current.withStatus(RentalState.Status.AVAILABLE);
+            if (rentalState.compareAndSet(current, next)) return next;
+        }
+    }
+
+    /**
+     * Books the vehicle for a later period
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @return true if the period was free and is now booked, false otherwise
+     */
+    public boolean reserve(Date startDate, Date endDate) {
+        return tryReserve(startDate, endDate) != null;
+    }
+
+    /**
+     * Books the vehicle for a period if it is free, see isAvailableBetween
+     * @param startDate The first day of the period
+     * @param endDate The last day of the period
+     * @return The state this call moved the vehicle to, or null if the period was not free
+     */
+    RentalState tryReserve(Date startDate, Date endDate) {
+        if (endDate.before(startDate)) return null;
+        while (true) {
+            RentalState current = rentalState.get();
+            if (!current.isFreeBetween(startDate.getTime(), endDate.getTime())) return null;
+            RentalState next = current.withReservations(
+                    current.getReservations().plus(startDate.getTime(), endDate.getTime()));
+            if (rentalState.compareAndSet(current, next)) return next;
+        }
+    }
+
+    /**
+     * Cancels a booking
+     * @param startDate The first day of the booking
+     * @param endDate The last day of the booking
+     * @return The state this call moved the vehicle to, or null if there was no such booking
+     */
+    RentalState tryCancelReservation(Date startDate, Date endDate) {
+        while (true) {
+            RentalState current = rentalState.get();
+            if (!current.getReservations().contains(startDate.getTime(), endDate.getTime())) return null;
+            RentalState next = current.withReservations(
+                    current.getReservations().minus(startDate.getTime(), endDate.getTime()));
+            if (rentalState.compareAndSet(current, next)) return next;
+        }
+    }
+
+    /**
+     * Holds an available vehicle so it can't be rented while it is transferred or removed
+     * @return true if the vehicle was available and is now held, false otherwise
+     */
+    boolean hold() {
+        while (true) {
+            RentalState current = rentalState.get();
+            if (current.getStatus() != RentalState.Status.AVAILABLE) return false;
+            if (rentalState.compareAndSet(current, current.withStatus(RentalState.Status.HELD))) return true;
+        }
+    }
+
+    /**
+     * Makes a held vehicle available again
+     */
+    void release() {
+        rentalState.updateAndGet(s -> s.getStatus() == RentalState.Status.HELD
+                ? s.withStatus(RentalState.Status.AVAILABLE) : s);
+    }
+
+    /**
+     * Applies a rental state read from the journal, unless the vehicle already has a newer one
+     * @param state The journaled state
+     * @return true if the state was applied, false if it was older than the current state
+     */
+    boolean applyRentalState(RentalState state) {
+        while (true) {
+            RentalState current = rentalState.get();
+            if (state.getVersion() <= current.getVersion()) return false;
+            if (rentalState.compareAndSet(current, state)) return true;
+        }
+    }
+
+    /**
+     * Creates a detached copy of this vehicle, used to snapshot the inventory
+     * while the original keeps changing
+     * @return A vehicle of the same type with the same field values
+     */
+    public Vehicle copy() {
+        try {
+            Vehicle copy = getClass().getDeclaredConstructor().newInstance();
+            copy.vehicleId = vehicleId;
+            copy.manufacturer = manufacturer;
+            copy.model = model;
+            copy.acquisitionDate = acquisitionDate;
+            copy.price = price;
+            copy.dealerId = dealerId;
+            copy.rentalState.set(rentalState.get());
+            copy.metadata = new HashMap<>(metadata);
+            return copy;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot copy " + getClass().getSimpleName(), e);
+        }
     }
 }
@@ -0,0 +1,108 @@
+package org.example;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The VehicleRangeIndex class keeps vehicles sorted by one numeric key, like the price or the
+ * acquisition date, so range queries and "cheapest ten" queries walk only the vehicles they
+ * return instead of the whole fleet: O(log n) to find the start, then one step per vehicle.
+ * <p>
+ * Vehicles are kept in a skip list ordered by key, then vehicle ID. Each vehicle's key is taken
+ * when it is added and used again to remove it, so the index stays consistent even if the
+ * vehicle's fields are changed in between. Vehicles without a key are not indexed.
+ * <p>
+ * The class is thread-safe. A query running while vehicles are added or removed may or may not
+ * see those vehicles, like an iterator over a concurrent collection.
+ */
+public class VehicleRangeIndex {
+    private final ToDoubleFunction<Vehicle> keyFunction;                             // Key of a vehicle, NaN if none
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(); // Vehicles by key, then vehicle ID
+    private final Map<String, Entry> entriesById = new ConcurrentHashMap<>();          // Entry of every vehicle by vehicle ID
+
+    /**
+     * Constructor that initialize an empty VehicleRangeIndex
+     * @param keyFunction Gets the key of a vehicle, NaN for vehicles that should not be indexed
+     */
+    public VehicleRangeIndex(ToDoubleFunction<Vehicle> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Adds a vehicle. A vehicle with the same ID must be removed first.
+     * @param vehicle The vehicle
+     */
+    public void add(Vehicle vehicle) {
+        double key = keyFunction.applyAsDouble(vehicle);
+        if (Double.isNaN(key)) return;
+
+        Entry entry = new Entry(key, vehicle.getVehicleId(), vehicle);
+        entriesById.put(vehicle.getVehicleId(), entry);
+        entries.add(entry);
+    }
+
+    /**
+     * Removes a vehicle added earlier
+     * @param vehicle The vehicle
+     */
+    public void remove(Vehicle vehicle) {
+        Entry entry = entriesById.get(vehicle.getVehicleId());
+        if (entry != null && entry.vehicle == vehicle && entriesById.remove(vehicle.getVehicleId(), entry)) {
+            entries.remove(entry);
+        }
+    }
+
+    /**
+     * Finds the vehicles whose key is in a range, in key order
+     * @param min The smallest key to include
+     * @param max The largest key to include
+     * @param filter Selects the vehicles to return among those in the range, or null for all of them
+     * @param limit The most vehicles to return
+     * @param descending true to start from the largest key
+     * @return The vehicles, sorted by key and then vehicle ID
+     */
+    public List<Vehicle> range(double min, double max, Predicate<Vehicle> filter, int limit, boolean descending) {
+        List<Vehicle> found = new ArrayList<>();
+        if (min > max || limit <= 0) return found;
+
+        // "" sorts before every vehicle ID, so the bounds take in every vehicle with the key
+        NavigableSet<Entry> inRange = entries.subSet(new Entry(min, "", null), true,
+                new Entry(Math.nextUp(max), "", null), false);
+        for (Entry entry : descending ? inRange.descendingSet() : inRange) {
+            if (filter == null || filter.test(entry.vehicle)) {
+                found.add(entry.vehicle);
+                if (found.size() == limit) break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the number of indexed vehicles
+     * @return The number of vehicles
+     */
+    public int size() {
+        return entriesById.size();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final double key;
+        private final String vehicleId;
+        private final Vehicle vehicle;          // null for the bounds of a range
+
+        Entry(double key, String vehicleId, Vehicle vehicle) {
+            this.key = key;
+            this.vehicleId = vehicleId;
+            this.vehicle = vehicle;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int order = Double.compare(key, other.key);
+            return order != 0 ? order : vehicleId.compareTo(other.vehicleId);
+        }
+    }
+}
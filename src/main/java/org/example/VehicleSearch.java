@@ -0,0 +1,187 @@
+package org.example;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The VehicleSearch class holds the search rules used by the GUI search box.
+ * <p>
+ * Price and Acquired searches take a range: "20000-30000", "&lt;30000", "&gt;=20000" or a single
+ * value. Prices may be written like "$20k", dates use MM/dd/yyyy and stand for the whole day.
+ */
+public class VehicleSearch {
+    /**
+     * The search type that finds manufacturers and models close to the query, tolerating typos
+     */
+    public static final String FUZZY = "Similar Make/Model";
+
+    private VehicleSearch() {
+    }
+
+    /**
+     * Gets how many typos a fuzzy search tolerates: none under three characters, one up to five
+     * characters and two for longer queries
+     * @param query The search text
+     * @return The largest edit distance a match may have
+     */
+    public static int maxEditDistance(String query) {
+        int length = query.length();
+        return length < 3 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Checks if a vehicle matches search criteria
+     * @param vehicle The vehicle to check
+     * @param searchType The field to search: ID, Manufacturer, Model, Dealer ID, Type, Price, Acquired,
+     *                   All Fields or FUZZY
+     * @param query The lowercase search text
+     * @return true if the vehicle matches, otherwise false
+     */
+    public static boolean matchesSearchCriteria(Vehicle vehicle, String searchType, String query) {
+        switch (searchType) {
+            case "ID":
+                return vehicle.getVehicleId().toLowerCase().contains(query);
+            case "Manufacturer":
+                return vehicle.getManufacturer().toLowerCase().contains(query);
+            case "Model":
+                return vehicle.getModel().toLowerCase().contains(query);
+            case "Dealer ID":
+                return vehicle.getDealerId().toLowerCase().contains(query);
+            case "Type":
+                return vehicle.getClass().getSimpleName().toLowerCase().contains(query);
+            case "Price": {
+                double[] range = parsePriceRange(query);
+                return range != null && vehicle.getPrice() >= range[0] && vehicle.getPrice() <= range[1];
+            }
+            case "Acquired": {
+                double[] range = parseDateRange(query);
+                Date acquired = vehicle.getAcquisitionDate();
+                return range != null && acquired != null && acquired.getTime() >= range[0] && acquired.getTime() <= range[1];
+            }
+            case FUZZY:
+                int maxDistance = maxEditDistance(query);
+                return BKTree.isWithin(vehicle.getManufacturer().toLowerCase(), query, maxDistance) ||
+                        BKTree.isWithin(vehicle.getModel().toLowerCase(), query, maxDistance);
+            case "All Fields":
+            default:
+                return vehicle.getVehicleId().toLowerCase().contains(query) ||
+                        vehicle.getManufacturer().toLowerCase().contains(query) ||
+                        vehicle.getModel().toLowerCase().contains(query) ||
+                        vehicle.getDealerId().toLowerCase().contains(query) ||
+                        vehicle.getClass().getSimpleName().toLowerCase().contains(query);
+        }
+    }
+
+    /**
+     * Finds the vehicles of a Price or Acquired search from the manager's sorted indexes
+     * @param manager The manager to search
+     * @param searchType The field to search
+     * @param query The lowercase search text
+     * @return A new list of the matches, or null if the search type is not a range search
+     */
+    public static List<Vehicle> findInRange(DealershipManager manager, String searchType, String query) {
+        switch (searchType) {
+            case "Price": {
+                double[] range = parsePriceRange(query);
+                return range == null ? new ArrayList<>() : manager.findVehiclesByPrice(range[0], range[1]);
+            }
+            case "Acquired": {
+                double[] range = parseDateRange(query);
+                return range == null ? new ArrayList<>() : manager.findVehiclesAcquiredBetween(toDate(range[0]), toDate(range[1]));
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Parses the query of a Price search
+     * @param query The search text, like "$20k-$30k" or "&lt;25000"
+     * @return The lowest and highest price included, or null if the query is not a price range
+     */
+    public static double[] parsePriceRange(String query) {
+        return parseRange(query, VehicleSearch::parsePrice, 0.01);
+    }
+
+    /**
+     * Parses the query of an Acquired search
+     * @param query The search text, like "01/01/2025-03/31/2025" or "&lt;03/01/2025"
+     * @return The first and last millisecond included, or null if the query is not a date range
+     */
+    public static double[] parseDateRange(String query) {
+        return parseRange(query, VehicleSearch::parseDay, 1);
+    }
+
+    /**
+     * Parses "a-b", "&lt;a", "&lt;=a", "&gt;a", "&gt;=a" or "a", where each value stands for an interval
+     * @param step The smallest difference between two values, for the strict comparisons
+     */
+    private static double[] parseRange(String query, Function<String, double[]> parseValue, double step) {
+        String text = query.trim();
+        if (text.startsWith("<=") || text.startsWith(">=")) {
+            double[] value = parseValue.apply(text.substring(2).trim());
+            if (value == null) return null;
+            return text.charAt(0) == '<'
+                    ? new double[] {Double.NEGATIVE_INFINITY, value[1]}
+                    : new double[] {value[0], Double.POSITIVE_INFINITY};
+        }
+        if (text.startsWith("<") || text.startsWith(">")) {
+            double[] value = parseValue.apply(text.substring(1).trim());
+            if (value == null) return null;
+            return text.charAt(0) == '<'
+                    ? new double[] {Double.NEGATIVE_INFINITY, value[0] - step}
+                    : new double[] {value[1] + step, Double.POSITIVE_INFINITY};
+        }
+
+        int dash = text.indexOf('-', 1);
+        if (dash < 0) {
+            return parseValue.apply(text);
+        }
+        double[] from = parseValue.apply(text.substring(0, dash).trim());
+        double[] to = parseValue.apply(text.substring(dash + 1).trim());
+        return from == null || to == null ? null : new double[] {from[0], to[1]};
+    }
+
+    /**
+     * Parses a price like "25000", "$25,000" or "25k"
+     */
+    private static double[] parsePrice(String text) {
+        String digits = text.replace("$", "").replace(",", "").trim();
+        double multiplier = 1;
+        if (digits.endsWith("k")) {
+            multiplier = 1000;
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        try {
+            double price = Double.parseDouble(digits) * multiplier;
+            return Double.isFinite(price) ? new double[] {price, price} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a MM/dd/yyyy date into its first and last millisecond
+     */
+    private static double[] parseDay(String text) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy");
+        dateFormat.setLenient(false);
+        ParsePosition position = new ParsePosition(0);
+        Date day = dateFormat.parse(text, position);
+        if (day == null || position.getIndex() != text.length()) return null;
+
+        Calendar nextDay = Calendar.getInstance();
+        nextDay.setTime(day);
+        nextDay.add(Calendar.DAY_OF_MONTH, 1);
+        return new double[] {day.getTime(), nextDay.getTimeInMillis() - 1};
+    }
+
+    private static Date toDate(double millis) {
+        return Double.isInfinite(millis) ? null : new Date((long) millis);
+    }
+}
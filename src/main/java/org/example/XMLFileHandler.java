@@ -1,11 +1,26 @@
 package org.example;
 
-import org.w3c.dom.*;
-import javax.xml.parsers.*;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class XMLFileHandler {
+    private final XMLInputFactory inputFactory;
+
+    public XMLFileHandler() {
+        inputFactory = XMLInputFactory.newInstance();
+        // Supplier feeds never need external entities
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
 
     /**
      * Parses an XML file into a list of Vehicle objects
@@ -14,86 +29,152 @@ public class XMLFileHandler {
      */
     public List<Vehicle> importXML(File file) {
         List<Vehicle> vehicles = new ArrayList<>();
+        importXML(file, vehicles::add);
+        return vehicles;
+    }
+
+    /**
+     * Streams the vehicles of an XML file one at a time in a single forward pass.
+     * Vehicles are handed over as soon as they are complete. A dealer's name is taken from the
+     * Name or n elements before its first vehicle; a name after that is not used.
+     * If the file can't be read to the end, the error is printed and the vehicles handed over
+     * before it are all there is.
+     * @param file The XML file to parse
+     * @param consumer Called once for every vehicle parsed
+     * @return The number of vehicles parsed
+     */
+    public int importXML(File file, Consumer<Vehicle> consumer) {
+        int[] count = new int[1];
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(file);
-            document.getDocumentElement().normalize();
-
-            NodeList dealerNodes = document.getElementsByTagName("Dealer");
-            for (int i = 0; i < dealerNodes.getLength(); i++) {
-                Element dealerElement = (Element) dealerNodes.item(i);
-                String dealerId = dealerElement.getAttribute("id");
-
-                // Try different name tags - support both "Name" and "n" tags
-                String dealerName = getElementValue(dealerElement, "Name");
-                if (dealerName.isEmpty()) {
-                    dealerName = getElementValue(dealerElement, "n");
+            readXML(file, vehicle -> {
+                consumer.accept(vehicle);
+                count[0]++;
+            });
+        } catch (IOException e) {
+            System.err.println("Error parsing XML file: " + e.getMessage());
+            // Still return whatever vehicles were successfully parsed
+        }
+        return count[0];
+    }
+
+    /**
+     * Streams the vehicles of an XML file like importXML, but fails if the file can't be read
+     * to the end. The vehicles handed over before the failure stay handed over.
+     * @param file The XML file to parse
+     * @param consumer Called once for every vehicle parsed
+     * @return The number of vehicles parsed
+     * @throws IOException if the file can't be read or is not well-formed XML
+     */
+    public int readXML(File file, Consumer<Vehicle> consumer) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            try {
+                return parseDocument(reader, consumer);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Walks the document once, tracking the current Dealer and Vehicle
+     */
+    private int parseDocument(XMLStreamReader reader, Consumer<Vehicle> consumer) throws XMLStreamException {
+        DealerState dealer = null;
+        VehicleState vehicle = null;
+        StringBuilder text = null;      // Collects the text of the field being read
+        String textTag = null;          // Name of the field being read
+        int textDepth = 0;              // Nesting inside the field being read
+        int count = 0;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String tag = reader.getLocalName();
+
+                if (text != null) {
+                    textDepth++;
+                } else if ("Dealer".equals(tag)) {
+                    dealer = new DealerState(reader.getAttributeValue(null, "id"));
+                } else if (dealer != null && vehicle == null && "Vehicle".equals(tag)) {
+                    dealer.settleName();
+                    vehicle = new VehicleState(
+                            reader.getAttributeValue(null, "type"),
+                            reader.getAttributeValue(null, "id"));
+                } else if (vehicle != null && vehicle.wantsField(tag)) {
+                    if ("Price".equals(tag)) {
+                        vehicle.priceUnit = reader.getAttributeValue(null, "unit");
+                    }
+                    text = new StringBuilder();
+                    textTag = tag;
+                } else if (dealer != null && vehicle == null && dealer.wantsField(tag)) {
+                    text = new StringBuilder();
+                    textTag = tag;
                 }
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                if (text != null) {
+                    text.append(reader.getText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String tag = reader.getLocalName();
 
-                NodeList vehicleNodes = dealerElement.getElementsByTagName("Vehicle");
-                for (int j = 0; j < vehicleNodes.getLength(); j++) {
-                    Element vehicleElement = (Element) vehicleNodes.item(j);
-                    Vehicle vehicle = createVehicleFromElement(vehicleElement, dealerId, dealerName);
+                if (text != null) {
+                    if (textDepth > 0) {
+                        textDepth--;
+                        continue;
+                    }
                     if (vehicle != null) {
-                        vehicles.add(vehicle);
+                        vehicle.setField(textTag, text.toString());
+                    } else if (dealer != null) {
+                        dealer.setField(textTag, text.toString());
+                    }
+                    text = null;
+                    textTag = null;
+                } else if (vehicle != null && "Vehicle".equals(tag)) {
+                    Vehicle created = createVehicle(vehicle, dealer.dealerId);
+                    if (created != null) {
+                        dealer.emit(created, consumer);
+                        count++;
                     }
+                    vehicle = null;
+                } else if (dealer != null && "Dealer".equals(tag)) {
+                    dealer = null;
                 }
             }
-        } catch (Exception e) {
-            System.err.println("Error parsing XML file: " + e.getMessage());
-            // Still return whatever vehicles were successfully parsed
         }
-        return vehicles;
+        return count;
     }
 
     /**
-     * Creates a Vehicle object from an XML element
+     * Creates a Vehicle object from the fields read for one Vehicle element
      */
-    private Vehicle createVehicleFromElement(Element vehicleElement, String dealerId, String dealerName) {
+    private Vehicle createVehicle(VehicleState state, String dealerId) {
         try {
             // Get vehicle type with default if missing
-            String vehicleType = "suv"; // Default type
-            if (vehicleElement.hasAttribute("type")) {
-                vehicleType = vehicleElement.getAttribute("type").toLowerCase();
-            }
+            String vehicleType = state.type != null ? state.type.toLowerCase() : "suv";
 
             // Get vehicle ID with generated ID if missing
-            String vehicleId = "";
-            if (vehicleElement.hasAttribute("id")) {
-                vehicleId = vehicleElement.getAttribute("id");
-            } else {
-                vehicleId = generateRandomId();
-            }
+            String vehicleId = state.id != null ? state.id : generateRandomId();
 
-            // Get make and model
-            String make = getElementValue(vehicleElement, "Make");
-            if (make.isEmpty()) {
-                // Try alternate tag name "Manufacturer"
-                make = getElementValue(vehicleElement, "Manufacturer");
+            // Use the alternate tag name "Manufacturer" if "Make" is missing or empty
+            String make = state.make;
+            if (make == null || make.isEmpty()) {
+                make = state.manufacturer != null ? state.manufacturer : "";
             }
 
-            String model = getElementValue(vehicleElement, "Model");
+            String model = state.model != null ? state.model : "";
 
             // Initialize price with default
             double price = 0.0;
-
-            // Get price element safely
-            NodeList priceNodes = vehicleElement.getElementsByTagName("Price");
-            if (priceNodes.getLength() > 0) {
-                Element priceElement = (Element) priceNodes.item(0);
-
+            if (state.price != null) {
                 try {
-                    // Default to dollars if unit isn't specified
-                    String priceUnit = "dollars";
-                    if (priceElement.hasAttribute("unit")) {
-                        priceUnit = priceElement.getAttribute("unit");
-                    }
+                    price = Double.parseDouble(state.price);
 
-                    price = Double.parseDouble(priceElement.getTextContent());
-
-                    // Convert pounds to dollars
-                    if ("pounds".equals(priceUnit)) {
+                    // Default to dollars if unit isn't specified, convert pounds to dollars
+                    if ("pounds".equals(state.priceUnit)) {
                         price = price * 1.25; // Example conversion rate
                     }
                 } catch (NumberFormatException e) {
@@ -127,12 +208,9 @@ public class XMLFileHandler {
             vehicle.setManufacturer(make);
             vehicle.setModel(model);
             vehicle.setPrice(price);
-            vehicle.setDealerId(dealerId);
+            vehicle.setDealerId(dealerId != null ? dealerId : "");
             vehicle.setAcquisitionDate(new Date());
 
-            // Store dealer name in metadata (even if empty)
-            vehicle.getMetadata().put("dealer_name", dealerName != null ? dealerName : "");
-
             return vehicle;
         } catch (Exception e) {
             System.err.println("Error creating vehicle: " + e.getMessage());
@@ -141,20 +219,113 @@ public class XMLFileHandler {
     }
 
     /**
-     * Helper method to get element value
+     * Generates a random ID for vehicles without an ID attribute
      */
-    private String getElementValue(Element parent, String tagName) {
-        NodeList nodeList = parent.getElementsByTagName(tagName);
-        if (nodeList.getLength() > 0) {
-            return nodeList.item(0).getTextContent();
+    private String generateRandomId() {
+        return "GEN-" + System.currentTimeMillis() + "-" + (int)(Math.random() * 1000);
+    }
+
+    /**
+     * The Dealer element currently being read. Its name is settled when its first vehicle
+     * starts, so each vehicle can be handed over as soon as it is complete.
+     */
+    private static class DealerState {
+        final String dealerId;
+        String name;                // Text of the first Name element
+        String shortName;           // Text of the first n element
+        String settledName;         // Name given to the dealer's vehicles, null before the first vehicle
+
+        DealerState(String dealerId) {
+            this.dealerId = dealerId != null ? dealerId : "";
+        }
+
+        boolean wantsField(String tag) {
+            if (settledName != null) return false;
+            return ("Name".equals(tag) && name == null) || ("n".equals(tag) && shortName == null);
+        }
+
+        void setField(String tag, String value) {
+            if ("Name".equals(tag)) {
+                name = value;
+            } else {
+                shortName = value;
+            }
+        }
+
+        /**
+         * Gets the dealer name, supporting both "Name" and "n" tags
+         */
+        String dealerName() {
+            if (name != null && !name.isEmpty()) return name;
+            return shortName != null ? shortName : "";
+        }
+
+        /**
+         * Fixes the dealer name from the fields read so far, called when a vehicle starts
+         */
+        void settleName() {
+            if (settledName == null) {
+                settledName = dealerName();
+            }
+        }
+
+        void emit(Vehicle vehicle, Consumer<Vehicle> consumer) {
+            // Store dealer name in metadata (even if empty)
+            vehicle.getMetadata().put("dealer_name", settledName);
+            consumer.accept(vehicle);
         }
-        return "";
     }
 
     /**
-     * Generates a random ID for vehicles without an ID attribute
+     * The fields read so far for the Vehicle element currently being read.
+     * Only the first occurrence of each field is kept.
      */
-    private String generateRandomId() {
-        return "GEN-" + System.currentTimeMillis() + "-" + (int)(Math.random() * 1000);
+    private static class VehicleState {
+        final String type;
+        final String id;
+        String make;
+        String manufacturer;
+        String model;
+        String price;
+        String priceUnit;
+
+        VehicleState(String type, String id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        boolean wantsField(String tag) {
+            switch (tag) {
+                case "Make":
+                    return make == null;
+                case "Manufacturer":
+                    return manufacturer == null;
+                case "Model":
+                    return model == null;
+                case "Price":
+                    return price == null;
+                default:
+                    return false;
+            }
+        }
+
+        void setField(String tag, String value) {
+            switch (tag) {
+                case "Make":
+                    make = value;
+                    break;
+                case "Manufacturer":
+                    manufacturer = value;
+                    break;
+                case "Model":
+                    model = value;
+                    break;
+                case "Price":
+                    price = value;
+                    break;
+                default:
+                    break;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,299 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealershipManagerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void changesSurviveARestartThroughTheJournal() {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(manager.addVehicleToInventory(vehicle("v" + i, i % 2 == 0 ? "1" : "2", 10000 + i), inventoryFile));
+        }
+        manager.saveState(inventoryFile);
+
+        // Changes after the snapshot only live in the journal
+        assertTrue(manager.rentVehicle("1", "v0", "01/01/2030", "01/05/2030", inventoryFile));
+        assertTrue(manager.transferVehicle("1", "2", "v2", inventoryFile));
+        assertTrue(manager.removeVehicleFromInventory("2", "v3", "Toyota", "RAV4", 10003, inventoryFile));
+        assertTrue(manager.rentVehicle("1", "v4", "02/01/2030", "02/05/2030", inventoryFile));
+        assertTrue(manager.returnVehicle("1", "v0", inventoryFile));
+        manager.closeJournal();
+
+        DealershipManager restarted = new DealershipManager();
+        restarted.readInventoryFile(inventoryFile);
+        assertEquals(fleet(manager), fleet(restarted));
+        assertEquals(9, restarted.getVehiclesForDisplay().size());
+        assertFalse(find(restarted, "v0").isRented());
+        assertTrue(find(restarted, "v4").isRented());
+    }
+
+    @Test
+    void stateSurvivesCompactionAndReplay() throws Exception {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(manager.addVehicleToInventory(vehicle("v" + i, i % 2 == 0 ? "1" : "2", 10000 + i), inventoryFile));
+        }
+        assertTrue(manager.rentVehicle("1", "v0", "01/01/2030", "01/05/2030", inventoryFile));
+        assertTrue(manager.reserveVehicle("2", "v1", "02/01/2030", "02/07/2030", inventoryFile));
+        manager.compact(inventoryFile);
+
+        // Changes after the compaction only live in the journal
+        assertTrue(manager.transferVehicle("1", "2", "v2", inventoryFile));
+        assertTrue(manager.removeVehicleFromInventory("2", "v3", "Toyota", "RAV4", 10003, inventoryFile));
+        assertTrue(manager.returnVehicle("1", "v0", inventoryFile));
+        manager.closeJournal();
+
+        DealershipManager restarted = new DealershipManager();
+        restarted.readInventoryFile(inventoryFile);
+        assertEquals(fleet(manager), fleet(restarted));
+        assertEquals("2", find(restarted, "v2").getDealerId());
+        assertNull(find(restarted, "v3"));
+        assertFalse(find(restarted, "v0").isRented());
+        assertEquals(1, find(restarted, "v1").getReservations().size());
+    }
+
+    @Test
+    void compactionDuringTransfersKeepsEveryVehicleOnce() throws Exception {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        for (int i = 0; i < 200; i++) {
+            manager.addVehicleToInventory(vehicle("v" + i, String.valueOf(i % 4), 10000 + i), inventoryFile);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread mover = new Thread(() -> {
+            Random random = new Random(42);
+            while (running.get()) {
+                Vehicle vehicle = manager.findVehicle("v" + random.nextInt(200));
+                String target = String.valueOf(random.nextInt(4));
+                manager.transferVehicle(vehicle.getDealerId(), target, vehicle.getVehicleId(), inventoryFile);
+            }
+        });
+        mover.start();
+        for (int i = 0; i < 20; i++) {
+            manager.compact(inventoryFile);
+        }
+        running.set(false);
+        mover.join();
+        manager.closeJournal();
+
+        DealershipManager restarted = new DealershipManager();
+        restarted.readInventoryFile(inventoryFile);
+        assertEquals(200, fleet(restarted).size());
+        assertEquals(fleet(manager), fleet(restarted));
+    }
+
+    @Test
+    void saveStateEmptiesTheJournal() {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        assertTrue(manager.addVehicleToInventory(vehicle("a", "1", 20000), inventoryFile));
+        assertTrue(manager.addVehicleToInventory(vehicle("b", "1", 20000), inventoryFile));
+        manager.saveState(inventoryFile);
+        manager.closeJournal();
+
+        InventoryJournal journal = new InventoryJournal(InventoryJournal.journalFileFor(inventoryFile));
+        assertEquals(0, journal.replay(0, record -> { }));
+
+        DealershipManager restarted = new DealershipManager();
+        restarted.readInventoryFile(inventoryFile);
+        assertEquals(fleet(manager), fleet(restarted));
+    }
+
+    @Test
+    void ingestionCountsEveryVehicleAndJournalsTheAcceptedOnes() {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        assertTrue(manager.addVehicleToInventory(vehicle("a", "1", 20000), inventoryFile));
+        assertTrue(manager.addVehicleToInventory(vehicle("x", "3", 20000), inventoryFile));
+        assertTrue(manager.disableAcquisition("3"));
+
+        List<Vehicle> batch = new ArrayList<>();
+        batch.add(vehicle("b", "1", 20000));
+        batch.add(vehicle("a", "1", 20000));    // Already in the fleet
+        batch.add(vehicle("b", "2", 20000));    // Earlier in the batch
+        batch.add(vehicle(null, "1", 20000));   // No ID
+        batch.add(vehicle("y", "3", 20000));    // Acquisition disabled
+        batch.add(vehicle("c", "2", 20000));
+        IngestionReport report = manager.ingestVehicles(batch, inventoryFile);
+        assertEquals(2, report.getAccepted());
+        assertEquals(2, report.getDuplicates());
+        assertEquals(2, report.getRejected());
+        assertEquals(6, report.getTotal());
+        manager.closeJournal();
+
+        DealershipManager restarted = new DealershipManager();
+        restarted.readInventoryFile(inventoryFile);
+        assertEquals(Map.of("a", "1", "b", "1", "c", "2", "x", "3"), fleet(restarted));
+    }
+
+    @Test
+    void bulkRemovalSkipsRentedVehiclesAndIsJournaledOnce() throws Exception {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        for (int i = 0; i < 20; i++) {
+            Vehicle vehicle = vehicle("v" + i, i < 10 ? "1" : "2", 10000 + i);
+            vehicle.setAcquisitionDate(new Date(1_700_000_000_000L + i * 86_400_000L));
+            manager.addVehicleToInventory(vehicle, inventoryFile);
+        }
+        manager.compact(inventoryFile);
+        assertTrue(manager.rentVehicle("1", "v1", "01/01/2030", "01/05/2030", inventoryFile));
+
+        List<Vehicle> removed = manager.removeVehicles(List.of("v0", "v1", "v2", "missing", "v15"), inventoryFile);
+        assertEquals(List.of("v0", "v2", "v15"), removed.stream().map(Vehicle::getVehicleId).toList());
+
+        // Dealer 1's vehicles acquired before v6, v1 is rented
+        Date cutoff = new Date(1_700_000_000_000L + 6 * 86_400_000L);
+        removed = manager.removeVehiclesIf("1", vehicle -> vehicle.getAcquisitionDate().before(cutoff), inventoryFile);
+        assertEquals(List.of("v3", "v4", "v5"), removed.stream().map(Vehicle::getVehicleId).sorted().toList());
+        assertNotNull(manager.findVehicle("v1"));
+        assertEquals(14, manager.getVehiclesForDisplay().size());
+        manager.closeJournal();
+
+        // One rent record and one remove record per removed vehicle
+        InventoryJournal journal = new InventoryJournal(InventoryJournal.journalFileFor(inventoryFile));
+        assertEquals(7, journal.replay(0, record -> { }));
+
+        DealershipManager restarted = new DealershipManager();
+        restarted.readInventoryFile(inventoryFile);
+        assertEquals(fleet(manager), fleet(restarted));
+    }
+
+    @Test
+    void concurrentChangesLoseNoUpdates() throws Exception {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        int dealers = 8;
+        int perDealer = 500;
+        List<Vehicle> fleet = new ArrayList<>();
+        for (int i = 0; i < dealers * perDealer; i++) {
+            fleet.add(vehicle("v" + i, String.valueOf(i % dealers), 10000 + i));
+        }
+        manager.ingestVehicles(fleet, inventoryFile);
+
+        int threads = 8;
+        int[] rentals = new int[threads];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.add(new Thread(() -> {
+                Random random = new Random(worker);
+                for (int i = 0; i < 5000; i++) {
+                    Vehicle vehicle = fleet.get(random.nextInt(fleet.size()));
+                    String dealerId = vehicle.getDealerId();
+                    int change = random.nextInt(3);
+                    if (change == 0) {
+                        manager.transferVehicle(dealerId, String.valueOf(random.nextInt(dealers)),
+                                vehicle.getVehicleId(), inventoryFile);
+                    } else if (change == 1) {
+                        if (manager.rentVehicle(dealerId, vehicle.getVehicleId(), "01/01/2030", "01/05/2030", inventoryFile)) {
+                            rentals[worker]++;
+                        }
+                    } else if (manager.returnVehicle(dealerId, vehicle.getVehicleId(), inventoryFile)) {
+                        rentals[worker]--;
+                    }
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        manager.closeJournal();
+
+        // Every vehicle is in exactly one dealership, the one it names, and every rental stuck
+        Map<String, String> dealerByVehicle = fleet(manager);
+        assertEquals(fleet.size(), dealerByVehicle.size());
+        for (Vehicle vehicle : fleet) {
+            assertEquals(vehicle.getDealerId(), dealerByVehicle.get(vehicle.getVehicleId()));
+        }
+        long rented = fleet.stream().filter(Vehicle::isRented).count();
+        assertEquals(Arrays.stream(rentals).sum(), rented);
+
+        // The journal replays to the same fleet, whatever order the rentals were journaled in
+        DealershipManager restarted = new DealershipManager();
+        restarted.readInventoryFile(inventoryFile);
+        assertEquals(dealerByVehicle, fleet(restarted));
+        for (Vehicle vehicle : fleet) {
+            assertEquals(vehicle.isRented(), restarted.findVehicle(vehicle.getVehicleId()).isRented());
+        }
+    }
+
+    @Test
+    void transfersAndRemovalsReplayOverALateReturn() throws Exception {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        manager.addVehicleToInventory(vehicle("a", "1", 20000), inventoryFile);
+        manager.addVehicleToInventory(vehicle("b", "1", 20000), inventoryFile);
+        manager.addVehicleToInventory(vehicle("c", "2", 20000), inventoryFile);
+        manager.closeJournal();
+
+        // A return that was made before a transfer or removal, but journaled after it
+        Date start = new Date(1_900_000_000_000L);
+        Date end = new Date(start.getTime() + 86_400_000L);
+        RentalState rented = new RentalState(RentalState.Status.RENTED, start, end, 1);
+        RentalState returned = new RentalState(RentalState.Status.AVAILABLE, start, end, 2);
+        try (InventoryJournal journal = new InventoryJournal(InventoryJournal.journalFileFor(inventoryFile))) {
+            journal.replay(0, record -> { });
+            journal.appendRent("1", "a", rented);
+            journal.appendTransfer("1", "2", "a");
+            journal.appendReturn("1", "a", returned);
+            journal.appendRent("1", "b", rented);
+            journal.appendRemove("1", "b");
+            journal.appendReturn("1", "b", returned);
+        }
+
+        DealershipManager restarted = new DealershipManager();
+        restarted.readInventoryFile(inventoryFile);
+        assertEquals(Map.of("a", "2", "c", "2"), fleet(restarted));
+        assertEquals("2", restarted.findVehicle("a").getDealerId());
+        assertFalse(restarted.findVehicle("a").isRented());
+        assertNull(restarted.findVehicle("b"));
+    }
+
+    /**
+     * Gets the dealer ID of every vehicle by vehicle ID, as the dealerships hold them
+     */
+    private static Map<String, String> fleet(DealershipManager manager) {
+        Map<String, String> dealerByVehicle = new TreeMap<>();
+        for (String dealerId : manager.getDealerIds()) {
+            for (Vehicle vehicle : manager.getVehiclesForDealer(dealerId)) {
+                assertNull(dealerByVehicle.put(vehicle.getVehicleId(), dealerId), "Vehicle in two dealerships");
+            }
+        }
+        return dealerByVehicle;
+    }
+
+    private static Vehicle find(DealershipManager manager, String vehicleId) {
+        for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
+            if (vehicle.getVehicleId().equals(vehicleId)) {
+                return vehicle;
+            }
+        }
+        return null;
+    }
+
+    static Vehicle vehicle(String vehicleId, String dealerId, double price) {
+        Vehicle vehicle = new SUV();
+        vehicle.setVehicleId(vehicleId);
+        vehicle.setDealerId(dealerId);
+        vehicle.setManufacturer("Toyota");
+        vehicle.setModel("RAV4");
+        vehicle.setPrice(price);
+        vehicle.setAcquisitionDate(new Date(1_700_000_000_000L));
+        return vehicle;
+    }
+}
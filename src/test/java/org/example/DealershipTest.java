@@ -0,0 +1,57 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealershipTest {
+    @Test
+    void vehiclesKeepTheirInsertionOrder() {
+        Dealership dealership = new Dealership("1");
+        for (String id : new String[]{"c", "a", "d", "b"}) {
+            assertTrue(dealership.addVehicle(DealershipManagerTest.vehicle(id, "1", 20000)));
+        }
+        assertFalse(dealership.addVehicle(DealershipManagerTest.vehicle("a", "1", 30000)));
+        assertNotNull(dealership.removeVehicle("d"));
+        assertNull(dealership.removeVehicle("d"));
+
+        assertEquals(List.of("c", "a", "b"), ids(dealership.getVehicles()));
+        assertEquals(20000, dealership.findVehicleById("a").getPrice());
+        assertEquals(3, dealership.getVehicleCount());
+    }
+
+    @Test
+    void lookupsStayCorrectWithManyVehicles() {
+        int count = 1_000_000;
+        Dealership dealership = new Dealership("1");
+        for (int i = 0; i < count; i++) {
+            dealership.addVehicle(DealershipManagerTest.vehicle("v" + i, "1", i));
+        }
+        assertEquals(count, dealership.getVehicleCount());
+        for (int i = 0; i < count; i += 997) {
+            assertEquals(i, dealership.findVehicleById("v" + i).getPrice());
+        }
+
+        Date start = new Date(1_900_000_000_000L);
+        assertTrue(dealership.rentVehicle("v500000", start, new Date(start.getTime() + 86_400_000L)));
+        assertTrue(dealership.findVehicleById("v500000").isRented());
+        assertTrue(dealership.returnVehicle("v500000"));
+
+        Dealership target = new Dealership("2");
+        assertTrue(dealership.transferVehicle("v999999", target));
+        assertFalse(dealership.containsVehicle("v999999"));
+        assertEquals("2", target.findVehicleById("v999999").getDealerId());
+    }
+
+    private static List<String> ids(List<Vehicle> vehicles) {
+        List<String> ids = new ArrayList<>();
+        for (Vehicle vehicle : vehicles) {
+            ids.add(vehicle.getVehicleId());
+        }
+        return ids;
+    }
+}
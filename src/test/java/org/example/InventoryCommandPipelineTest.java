@@ -0,0 +1,77 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryCommandPipelineTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void changesCompleteOnceDurable() throws Exception {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        try (InventoryCommandPipeline pipeline = new InventoryCommandPipeline(manager, inventoryFile)) {
+            pipeline.start();
+            assertTrue(pipeline.addVehicle(suv("a")).get(5, TimeUnit.SECONDS));
+            assertTrue(pipeline.addVehicle(suv("b")).get(5, TimeUnit.SECONDS));
+        }
+        manager.closeJournal();
+
+        DealershipManager restarted = new DealershipManager();
+        restarted.readInventoryFile(inventoryFile);
+        assertNotNull(restarted.findVehicle("a"));
+        assertNotNull(restarted.findVehicle("b"));
+    }
+
+    @Test
+    void failingChangeOnlyFailsItsOwnFuture() throws Exception {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        try (InventoryCommandPipeline pipeline = new InventoryCommandPipeline(new DealershipManager(), inventoryFile)) {
+            pipeline.start();
+            CompletableFuture<Boolean> failing = pipeline.submit(() -> {
+                throw new IllegalStateException("broken change");
+            });
+            CompletableFuture<Boolean> added = pipeline.addVehicle(suv("a"));
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+            assertTrue(added.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void batchThatCannotBeJournaledFailsAndWriterGoesOn() throws Exception {
+        // The journal can't be created in a directory that does not exist
+        File inventoryFile = directory.resolve("missing").resolve("inventory.json").toFile();
+        try (InventoryCommandPipeline pipeline = new InventoryCommandPipeline(new DealershipManager(), inventoryFile)) {
+            pipeline.start();
+            CompletableFuture<Boolean> first = pipeline.addVehicle(suv("a"));
+            assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+
+            CompletableFuture<Boolean> second = pipeline.addVehicle(suv("b"));
+            assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertEquals(0, pipeline.getCommandCount());
+        }
+    }
+
+    private static Vehicle suv(String vehicleId) {
+        Vehicle vehicle = new SUV();
+        vehicle.setVehicleId(vehicleId);
+        vehicle.setDealerId("1");
+        vehicle.setManufacturer("Toyota");
+        vehicle.setModel("RAV4");
+        vehicle.setPrice(30000);
+        vehicle.setAcquisitionDate(new Date(1_700_000_000_000L));
+        return vehicle;
+    }
+}
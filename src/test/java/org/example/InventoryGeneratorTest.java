@@ -0,0 +1,87 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryGeneratorTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void sameSeedGivesTheSameFiles() throws IOException {
+        File first = directory.resolve("first.json").toFile();
+        File second = directory.resolve("second.json").toFile();
+        new InventoryGenerator(7).writeJson(1000, first);
+        new InventoryGenerator(7).writeJson(1000, second);
+        assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+
+        File other = directory.resolve("other.json").toFile();
+        new InventoryGenerator(8).writeJson(1000, other);
+        assertFalse(Arrays.equals(Files.readAllBytes(first.toPath()), Files.readAllBytes(other.toPath())));
+    }
+
+    @Test
+    void settingsShapeTheInventory() {
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(4);
+        generator.setTypeMix(1, 0, 1, 0);
+        generator.setRentalRatio(0.5);
+        Map<String, Integer> types = new HashMap<>();
+        Map<String, Integer> dealers = new HashMap<>();
+        int[] rented = new int[1];
+        generator.generate(10_000, vehicle -> {
+            types.merge(vehicle.getClass().getSimpleName(), 1, Integer::sum);
+            dealers.merge(vehicle.getDealerId(), 1, Integer::sum);
+            if (vehicle.isRented()) rented[0]++;
+        });
+
+        assertEquals(Map.of("SUV", types.get("SUV"), "Pickup", types.get("Pickup")), types);
+        assertEquals(4, dealers.size());
+        assertEquals(5000, types.get("SUV"), 300);
+        assertEquals(5000, rented[0], 300);
+        assertThrows(IllegalArgumentException.class, () -> generator.setRentalRatio(1.5));
+        assertThrows(IllegalArgumentException.class, () -> generator.setDealerCount(0));
+    }
+
+    @Test
+    void skewPutsMoreVehiclesAtTheFirstDealers() {
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(10);
+        generator.setDealerSkew(1);
+        Map<String, Integer> dealers = new HashMap<>();
+        generator.generate(10_000, vehicle -> dealers.merge(vehicle.getDealerId(), 1, Integer::sum));
+        assertTrue(dealers.get("1") > 2 * dealers.get("10"));
+    }
+
+    @Test
+    void jsonAndXmlLoadAtScale() throws IOException {
+        int count = 100_000;
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(50);
+
+        File jsonFile = directory.resolve("inventory.json").toFile();
+        generator.writeJson(count, jsonFile);
+        DealershipManager fromJson = new DealershipManager();
+        fromJson.readInventoryFile(jsonFile);
+        assertEquals(count, fromJson.getVehiclesForDisplay().size());
+        assertEquals(50, fromJson.getDealerIds().size());
+
+        File xmlFile = directory.resolve("inventory.xml").toFile();
+        generator.writeXml(count, xmlFile);
+        DealershipManager fromXml = new DealershipManager();
+        IngestionReport report = fromXml.ingestXMLFile(xmlFile, directory.resolve("imported.json").toFile());
+        fromXml.closeJournal();
+        assertTrue(report.isComplete());
+        assertEquals(count, report.getAccepted());
+    }
+}
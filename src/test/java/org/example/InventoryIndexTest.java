@@ -0,0 +1,170 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryIndexTest {
+    private static final String[] SEARCH_TYPES = {"ID", "Manufacturer", "Model", "Dealer ID", "Type", "All Fields",
+            VehicleSearch.FUZZY};
+    private static final String[] QUERIES = {"", "to", "toy", "toyta", "suv", "v12", "000", "1", "ford", "camr"};
+
+    @Test
+    void searchesMatchAFullScan() {
+        DealershipManager manager = generatedManager(2000);
+        InventoryIndex index = new InventoryIndex(manager);
+        assertMatchesScan(manager, index);
+
+        // Follow changes through the inventory events
+        List<Vehicle> fleet = new ArrayList<>(manager.getVehiclesForDisplay());
+        for (int i = 0; i < 100; i++) {
+            Vehicle vehicle = fleet.get(i * 7);
+            String target = String.valueOf(i % 5);
+            if (i % 3 == 0) {
+                manager.removeVehicles(List.of(vehicle.getVehicleId()), null);
+            } else if (!vehicle.getDealerId().equals(target)) {
+                manager.transferVehicle(vehicle.getDealerId(), target, vehicle.getVehicleId(), null);
+            }
+        }
+        assertEquals(manager.getVehiclesForDisplay().size(), index.size());
+        assertMatchesScan(manager, index);
+        index.close();
+    }
+
+    @Test
+    void rebuildDuringChangesDoesNotDeadlockAndCatchesUp() {
+        DealershipManager manager = generatedManager(2000);
+        InventoryIndex index = new InventoryIndex(manager);
+        List<Vehicle> fleet = new ArrayList<>(manager.getVehiclesForDisplay());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread mover = new Thread(() -> {
+                Random random = new Random(42);
+                while (running.get()) {
+                    Vehicle vehicle = fleet.get(random.nextInt(fleet.size()));
+                    manager.transferVehicle(vehicle.getDealerId(), String.valueOf(random.nextInt(5)),
+                            vehicle.getVehicleId(), null);
+                }
+            });
+            mover.start();
+            for (int i = 0; i < 50; i++) {
+                index.rebuild();
+            }
+            running.set(false);
+            mover.join();
+        });
+
+        assertMatchesScan(manager, index);
+        index.close();
+    }
+
+    @Test
+    void countsMatchTheFleet() {
+        DealershipManager manager = generatedManager(2000);
+        InventoryIndex index = new InventoryIndex(manager);
+        Map<String, Integer> types = new TreeMap<>();
+        Set<String> rentedSuvs = new TreeSet<>();
+        for (Vehicle vehicle : manager.getVehiclesForDisplay()) {
+            types.merge(vehicle.getClass().getSimpleName(), 1, Integer::sum);
+            if (vehicle instanceof SUV && vehicle.isRented()) {
+                rentedSuvs.add(vehicle.getVehicleId());
+            }
+        }
+        assertEquals(types, index.getCounts(InventoryIndex.Field.TYPE));
+
+        InventoryIndex.Result result = index.search(Map.of(
+                InventoryIndex.Field.TYPE, "suv",
+                InventoryIndex.Field.STATUS, "RENTED"));
+        assertEquals(rentedSuvs, new TreeSet<>(ids(result.getVehicles())));
+        assertEquals(rentedSuvs.size(), result.getCount());
+        assertEquals(rentedSuvs.size(), result.getFacetCounts(InventoryIndex.Field.TYPE).get("SUV"));
+        index.close();
+    }
+
+    @Test
+    void trigramCandidatesCoverEveryMatch() {
+        TrigramIndex trigrams = new TrigramIndex();
+        trigrams.add("V1234", 1);
+        trigrams.add("x12345", 2);
+        trigrams.add("abc", 3);
+        assertArrayEquals(new int[]{1, 2}, trigrams.candidates("123"));
+        assertArrayEquals(new int[]{2}, trigrams.candidates("2345"));
+        assertArrayEquals(new int[0], trigrams.candidates("321"));
+
+        trigrams.remove("x12345", 2);
+        assertArrayEquals(new int[]{1}, trigrams.candidates("v12"));
+        assertFalse(TrigramIndex.canNarrow("12"));
+        assertThrows(IllegalArgumentException.class, () -> trigrams.candidates("12"));
+    }
+
+    @Test
+    void fuzzySearchRanksClosestValuesFirst() {
+        DealershipManager manager = new DealershipManager();
+        manager.processAddVehicleCommand("1", vehicle("a", "Toyota", "Camry"));
+        manager.processAddVehicleCommand("1", vehicle("b", "Toyoda", "Camry"));
+        manager.processAddVehicleCommand("1", vehicle("c", "Ford", "F-150"));
+        InventoryIndex index = new InventoryIndex(manager);
+
+        List<Vehicle> found = index.searchSimilar("toyota", 1).getVehicles();
+        assertEquals(List.of("a", "b"), ids(found));
+        assertEquals(List.of("toyota", "toyoda"), index.findSimilarValues(InventoryIndex.Field.MANUFACTURER, "toyota", 1)
+                .stream().map(BKTree.Match::getText).toList());
+        index.close();
+    }
+
+    @Test
+    void editDistances() {
+        assertEquals(0, BKTree.distance("camry", "camry"));
+        assertEquals(1, BKTree.distance("toyta", "toyota"));
+        assertEquals(3, BKTree.distance("kitten", "sitting"));
+        assertTrue(BKTree.isWithin("toyta", "toyota", 1));
+        assertFalse(BKTree.isWithin("kitten", "sitting", 2));
+    }
+
+    private static void assertMatchesScan(DealershipManager manager, InventoryIndex index) {
+        List<Vehicle> fleet = manager.getVehiclesForDisplay();
+        for (String searchType : SEARCH_TYPES) {
+            for (String query : QUERIES) {
+                Set<String> expected = new TreeSet<>();
+                for (Vehicle vehicle : fleet) {
+                    if (VehicleSearch.matchesSearchCriteria(vehicle, searchType, query)) {
+                        expected.add(vehicle.getVehicleId());
+                    }
+                }
+                Set<String> actual = new TreeSet<>(ids(index.search(searchType, query).getVehicles()));
+                assertEquals(expected, actual, searchType + " \"" + query + "\"");
+            }
+        }
+    }
+
+    private static DealershipManager generatedManager(int count) {
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setDealerCount(5);
+        generator.setRentalRatio(0.2);
+        List<Vehicle> fleet = new ArrayList<>();
+        generator.generate(count, fleet::add);
+        DealershipManager manager = new DealershipManager();
+        manager.ingestVehicles(fleet, null);
+        return manager;
+    }
+
+    private static Vehicle vehicle(String vehicleId, String manufacturer, String model) {
+        Vehicle vehicle = DealershipManagerTest.vehicle(vehicleId, "1", 20000);
+        vehicle.setManufacturer(manufacturer);
+        vehicle.setModel(model);
+        return vehicle;
+    }
+
+    private static List<String> ids(List<Vehicle> vehicles) {
+        List<String> ids = new ArrayList<>();
+        for (Vehicle vehicle : vehicles) {
+            ids.add(vehicle.getVehicleId());
+        }
+        return ids;
+    }
+}
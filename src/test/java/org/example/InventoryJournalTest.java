@@ -0,0 +1,88 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayReturnsRecordsInOrder() throws IOException {
+        File file = directory.resolve("inventory.journal").toFile();
+        try (InventoryJournal journal = new InventoryJournal(file)) {
+            journal.appendRemove("1", "a");
+            journal.appendRemove("1", "b");
+        }
+
+        List<String> ids = replayIds(new InventoryJournal(file), 0);
+        assertEquals(List.of("a", "b"), ids);
+        assertEquals(List.of("b"), replayIds(new InventoryJournal(file), 1));
+    }
+
+    @Test
+    void tornRecordIsCutOffSoLaterAppendsSurvive() throws IOException {
+        File file = directory.resolve("inventory.journal").toFile();
+        try (InventoryJournal journal = new InventoryJournal(file)) {
+            journal.appendRemove("1", "a");
+            journal.appendRemove("1", "b");
+        }
+        long completeLength = file.length();
+
+        // Crash in the middle of the next record
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("{\"seq\":3,\"op\":\"remove\",\"dealer_id\":\"1\",\"vehic".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Restart: replay drops the torn record, then the journal takes new appends
+        try (InventoryJournal journal = new InventoryJournal(file)) {
+            assertEquals(List.of("a", "b"), replayIds(journal, 0));
+            assertEquals(completeLength, file.length());
+            journal.appendRemove("1", "c");
+        }
+
+        InventoryJournal restarted = new InventoryJournal(file);
+        assertEquals(List.of("a", "b", "c"), replayIds(restarted, 0));
+        assertEquals(3, restarted.getLastSequence());
+    }
+
+    @Test
+    void unreadableLineEndsReplayAndIsCutOff() throws IOException {
+        File file = directory.resolve("inventory.journal").toFile();
+        try (InventoryJournal journal = new InventoryJournal(file)) {
+            journal.appendRemove("1", "a");
+        }
+        long completeLength = file.length();
+        Files.write(file.toPath(), "{\"seq\":2,\"op\"\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertEquals(List.of("a"), replayIds(new InventoryJournal(file), 0));
+        assertEquals(completeLength, file.length());
+    }
+
+    @Test
+    void missingJournalReplaysNothing() {
+        File file = directory.resolve("inventory.journal").toFile();
+        assertTrue(replayIds(new InventoryJournal(file), 0).isEmpty());
+        assertFalse(file.exists());
+    }
+
+    private static List<String> replayIds(InventoryJournal journal, long afterSequence) {
+        List<String> ids = new ArrayList<>();
+        journal.replay(afterSequence, (JsonNode record) -> ids.add(record.path("vehicle_id").asText()));
+        return ids;
+    }
+}
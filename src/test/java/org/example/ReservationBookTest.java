@@ -0,0 +1,154 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationBookTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void bookingsStaySortedAndNeverOverlap() {
+        ReservationBook book = ReservationBook.EMPTY.plus(30, 39).plus(10, 19).plus(50, 59);
+        assertEquals(3, book.size());
+        assertEquals(10, book.getStartDate(0).getTime());
+        assertEquals(59, book.getEndDate(2).getTime());
+
+        // Both ends are included
+        assertTrue(book.overlaps(19, 25));
+        assertTrue(book.overlaps(20, 30));
+        assertTrue(book.overlaps(0, 100));
+        assertFalse(book.overlaps(20, 29));
+        assertFalse(book.overlaps(60, 70));
+        assertFalse(book.overlaps(0, 9));
+
+        assertThrows(IllegalArgumentException.class, () -> book.plus(35, 45));
+        assertThrows(IllegalArgumentException.class, () -> book.plus(25, 20));
+    }
+
+    @Test
+    void removingOnlyTakesAnExactBooking() {
+        ReservationBook book = ReservationBook.EMPTY.plus(10, 19).plus(30, 39);
+        assertSame(book, book.minus(10, 18));
+        assertSame(book, book.minus(20, 29));
+
+        ReservationBook removed = book.minus(10, 19);
+        assertEquals(1, removed.size());
+        assertFalse(removed.contains(10, 19));
+        assertTrue(removed.contains(30, 39));
+        assertSame(ReservationBook.EMPTY, removed.minus(30, 39));
+        // The old book does not change
+        assertEquals(2, book.size());
+    }
+
+    @Test
+    void rentalsRespectBookings() throws ParseException {
+        DealershipManager manager = new DealershipManager();
+        manager.processAddVehicleCommand("1", DealershipManagerTest.vehicle("a", "1", 20000));
+
+        assertTrue(manager.reserveVehicle("1", "a", "06/01/2030", "06/07/2030", null));
+        assertFalse(manager.reserveVehicle("1", "a", "06/07/2030", "06/10/2030", null));
+        assertFalse(manager.rentVehicle("1", "a", "05/30/2030", "06/02/2030", null));
+
+        // Renting exactly the booked period picks the booking up
+        assertTrue(manager.rentVehicle("1", "a", "06/01/2030", "06/07/2030", null));
+        Vehicle vehicle = manager.findVehicle("a");
+        assertTrue(vehicle.isRented());
+        assertEquals(0, vehicle.getReservations().size());
+
+        assertTrue(manager.returnVehicle("1", "a", null));
+        assertTrue(manager.reserveVehicle("1", "a", "07/01/2030", "07/07/2030", null));
+        assertFalse(manager.cancelReservation("1", "a", "07/01/2030", "07/06/2030", null));
+        assertTrue(manager.cancelReservation("1", "a", "07/01/2030", "07/07/2030", null));
+        assertEquals(0, vehicle.getReservations().size());
+    }
+
+    @Test
+    void availabilityLeavesOutBookedVehicles() throws ParseException {
+        DealershipManager manager = new DealershipManager();
+        manager.processAddVehicleCommand("1", DealershipManagerTest.vehicle("a", "1", 20000));
+        manager.processAddVehicleCommand("1", DealershipManagerTest.vehicle("b", "1", 20000));
+        manager.processAddVehicleCommand("2", DealershipManagerTest.vehicle("c", "2", 20000));
+        assertTrue(manager.reserveVehicle("1", "a", "06/05/2030", "06/10/2030", null));
+
+        assertEquals(List.of("b"), ids(manager.findAvailableVehicles("1", null, date("06/01/2030"), date("06/07/2030"))));
+        assertEquals(List.of("a", "b"), ids(manager.findAvailableVehicles("1", "suv", date("06/11/2030"), date("06/12/2030"))));
+        assertEquals(3, manager.findAvailableVehicles(null, null, date("07/01/2030"), date("07/01/2030")).size());
+        assertTrue(manager.findAvailableVehicles("1", "Sedan", date("07/01/2030"), date("07/01/2030")).isEmpty());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.findAvailableVehicles(null, null, date("06/07/2030"), date("06/01/2030")));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.findAvailableVehicles(null, null, null, date("06/01/2030")));
+    }
+
+    @Test
+    void indexedAvailabilityMatchesTheScan() throws ParseException {
+        DealershipManager manager = new DealershipManager();
+        manager.processAddVehicleCommand("1", DealershipManagerTest.vehicle("a", "1", 20000));
+        manager.processAddVehicleCommand("1", DealershipManagerTest.vehicle("b", "1", 20000));
+        manager.processAddVehicleCommand("2", DealershipManagerTest.vehicle("c", "2", 20000));
+        Vehicle sedan = new Sedan();
+        sedan.setVehicleId("d");
+        sedan.setDealerId("1");
+        manager.processAddVehicleCommand("1", sedan);
+        InventoryIndex index = new InventoryIndex(manager);
+        assertTrue(manager.reserveVehicle("1", "a", "06/05/2030", "06/10/2030", null));
+        assertTrue(manager.rentVehicle("2", "c", "06/01/2030", "06/03/2030", null));
+        assertTrue(manager.transferVehicle("1", "2", "b", null));
+
+        String[][] filters = {{null, null}, {"1", null}, {"2", "suv"}, {null, "SUV"}, {"1", "Sedan"}, {"9", null}};
+        String[][] periods = {{"06/01/2030", "06/07/2030"}, {"06/04/2030", "06/04/2030"}, {"07/01/2030", "07/02/2030"}};
+        for (String[] filter : filters) {
+            for (String[] period : periods) {
+                assertEquals(ids(manager.findAvailableVehicles(filter[0], filter[1], date(period[0]), date(period[1]))),
+                        ids(index.findAvailable(filter[0], filter[1], date(period[0]), date(period[1]))),
+                        String.join(" ", filter[0] + "", filter[1] + "", period[0], period[1]));
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> index.findAvailable(null, null, date("06/07/2030"), date("06/01/2030")));
+        index.close();
+    }
+
+    @Test
+    void bookingsSurviveReplayAndSnapshot() throws Exception {
+        File inventoryFile = directory.resolve("inventory.json").toFile();
+        DealershipManager manager = new DealershipManager();
+        manager.addVehicleToInventory(DealershipManagerTest.vehicle("a", "1", 20000), inventoryFile);
+        assertTrue(manager.reserveVehicle("1", "a", "06/01/2030", "06/07/2030", inventoryFile));
+        assertTrue(manager.reserveVehicle("1", "a", "08/01/2030", "08/07/2030", inventoryFile));
+        manager.closeJournal();
+
+        DealershipManager replayed = new DealershipManager();
+        replayed.readInventoryFile(inventoryFile);
+        assertEquals(2, replayed.findVehicle("a").getReservations().size());
+
+        assertTrue(replayed.cancelReservation("1", "a", "06/01/2030", "06/07/2030", inventoryFile));
+        replayed.compact(inventoryFile);
+        replayed.closeJournal();
+
+        DealershipManager reloaded = new DealershipManager();
+        reloaded.readInventoryFile(inventoryFile);
+        ReservationBook book = reloaded.findVehicle("a").getReservations();
+        assertEquals(1, book.size());
+        assertEquals(date("08/01/2030"), book.getStartDate(0));
+    }
+
+    private static Date date(String text) throws ParseException {
+        return new SimpleDateFormat("MM/dd/yyyy").parse(text);
+    }
+
+    private static List<String> ids(List<Vehicle> vehicles) {
+        return vehicles.stream().map(Vehicle::getVehicleId).sorted().toList();
+    }
+}
@@ -0,0 +1,132 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XMLFileHandlerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsDealersAndTheirVehicles() throws IOException {
+        File xmlFile = write("<Dealers>\n"
+                + "  <Dealer id=\"1\">\n"
+                + "    <Name>North</Name>\n"
+                + "    <Vehicle type=\"Sedan\" id=\"a\"><Make>Toyota</Make><Model>Camry</Model>"
+                + "<Price unit=\"dollars\">20000</Price></Vehicle>\n"
+                + "    <Vehicle type=\"Pickup\" id=\"b\"><Manufacturer>Ford</Manufacturer><Model>F-150</Model>"
+                + "<Price unit=\"pounds\">40000</Price></Vehicle>\n"
+                + "  </Dealer>\n"
+                + "  <Dealer id=\"2\">\n"
+                + "    <Vehicle type=\"SUV\" id=\"c\"><Make>Honda</Make><Model>CR-V</Model></Vehicle>\n"
+                + "    <Name>South</Name>\n"
+                + "  </Dealer>\n"
+                + "</Dealers>\n");
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        assertEquals(3, new XMLFileHandler().readXML(xmlFile, vehicles::add));
+        assertEquals(3, vehicles.size());
+
+        Vehicle sedan = vehicles.get(0);
+        assertInstanceOf(Sedan.class, sedan);
+        assertEquals("1", sedan.getDealerId());
+        assertEquals("North", sedan.getMetadata().get("dealer_name"));
+        assertEquals(20000, sedan.getPrice());
+
+        Vehicle pickup = vehicles.get(1);
+        assertInstanceOf(Pickup.class, pickup);
+        assertEquals("Ford", pickup.getManufacturer());
+        assertEquals(50000, pickup.getPrice());
+
+        // The name is settled when the dealer's first vehicle starts, a later one is not used
+        Vehicle suv = vehicles.get(2);
+        assertEquals("2", suv.getDealerId());
+        assertEquals("", suv.getMetadata().get("dealer_name"));
+        assertEquals(0, suv.getPrice());
+    }
+
+    @Test
+    void readsEveryGeneratedVehicle() throws IOException {
+        File xmlFile = generate(100);
+        List<Vehicle> vehicles = new ArrayList<>();
+        assertEquals(100, new XMLFileHandler().readXML(xmlFile, vehicles::add));
+        assertEquals(100, vehicles.size());
+    }
+
+    @Test
+    void vehiclesOfADealerWithOnlyAShortNameAreNotHeldBack() throws IOException {
+        // The file ends in the middle of the dealer, before </Dealer>
+        File xmlFile = write("<Dealers>\n"
+                + "  <Dealer id=\"1\">\n"
+                + "    <n>North</n>\n"
+                + "    <Vehicle type=\"SUV\" id=\"a\"><Make>Toyota</Make><Model>RAV4</Model></Vehicle>\n"
+                + "    <Vehicle type=\"SUV\" id=\"b\"><Make>Honda</Make><Model>CR-V</Model></Vehicle>\n"
+                + "    <Vehicle type=\"SUV\" id=\"c\"><Make>Ford</Make>");
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        assertThrows(IOException.class, () -> new XMLFileHandler().readXML(xmlFile, vehicles::add));
+        assertEquals(2, vehicles.size());
+        assertEquals("North", vehicles.get(0).getMetadata().get("dealer_name"));
+        assertEquals("North", vehicles.get(1).getMetadata().get("dealer_name"));
+    }
+
+    @Test
+    void cutOffFileFailsAfterTheVehiclesBeforeTheCut() throws IOException {
+        File xmlFile = generate(100);
+        cutInHalf(xmlFile);
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        assertThrows(IOException.class, () -> new XMLFileHandler().readXML(xmlFile, vehicles::add));
+        assertFalse(vehicles.isEmpty());
+        assertTrue(vehicles.size() < 100);
+
+        // The lenient import still hands over what it could parse
+        assertEquals(vehicles.size(), new XMLFileHandler().importXML(xmlFile).size());
+    }
+
+    @Test
+    void ingestionReportsAPartialImport() throws IOException {
+        File xmlFile = generate(100);
+        cutInHalf(xmlFile);
+
+        IngestionReport report = new DealershipManager().ingestXMLFile(xmlFile, null);
+        assertFalse(report.isComplete());
+        assertNotNull(report.getFailure());
+        assertTrue(report.getAccepted() > 0);
+
+        IngestionReport complete = new DealershipManager().ingestXMLFile(generate(100), null);
+        assertTrue(complete.isComplete());
+        assertEquals(100, complete.getAccepted());
+    }
+
+    private File write(String xml) throws IOException {
+        File xmlFile = File.createTempFile("inventory", ".xml", directory.toFile());
+        Files.write(xmlFile.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        return xmlFile;
+    }
+
+    private File generate(int count) throws IOException {
+        File xmlFile = File.createTempFile("inventory", ".xml", directory.toFile());
+        InventoryGenerator generator = new InventoryGenerator(42);
+        generator.setRentalRatio(0);
+        generator.writeXml(count, xmlFile);
+        return xmlFile;
+    }
+
+    private static void cutInHalf(File file) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(out.length() / 2);
+        }
+    }
+}